@@ -14,6 +14,13 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Room exports every schema version, so migrations can be checked against the real history
+        javaCompileOptions {
+            annotationProcessorOptions {
+                arguments["room.schemaLocation"] = "$projectDir/schemas"
+            }
+        }
     }
 
     buildTypes {
@@ -29,6 +36,14 @@ android {
         sourceCompatibility = JavaVersion.VERSION_17
         targetCompatibility = JavaVersion.VERSION_17
     }
+    testOptions {
+        unitTests.all {
+            // JVM benchmarks are skipped unless the build runs with -Pbenchmarks
+            it.systemProperty("benchmarks", project.hasProperty("benchmarks"))
+            it.systemProperty("benchmarkReportDir",
+                layout.buildDirectory.dir("reports/benchmarks").get().asFile.path)
+        }
+    }
 }
 
 dependencies {
@@ -36,6 +51,7 @@ dependencies {
     implementation(libs.androidx.appcompat)
     implementation(libs.android.material)
     testImplementation(libs.junit)
+    testImplementation(libs.okhttp.mockwebserver)
     androidTestImplementation(libs.androidx.test.ext)
     androidTestImplementation(libs.androidx.test.espresso.core)
 
@@ -52,7 +68,14 @@ dependencies {
 
     // Glide
     implementation(libs.glide)
+    implementation(libs.glide.okhttp3.integration)
     annotationProcessor(libs.glide.compiler)
 
     implementation(libs.androidx.core.ktx)
+
+    // Paging
+    implementation(libs.androidx.paging.runtime)
+    implementation(libs.androidx.paging.guava)
+    implementation(libs.androidx.lifecycle.viewmodel.ktx)
+    implementation(libs.guava)
 }
\ No newline at end of file
@@ -0,0 +1,387 @@
+package com.example.hometask.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.Room;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hometask.model.User;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the migrations of {@link AppDatabase} against databases created with the statements Room ran
+ * for each shipped version, taken from that version's entities in the repository history. Versions 1
+ * and 2 predate that history, so the tests start at version 3.
+ * Each step must leave the same tables, columns, indexes and triggers as a fresh install of the next
+ * version. The newest version is created by Room from the current entities, and a migrated database
+ * must also pass Room's own schema check when it is opened.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String TEST_DB = "migration-test";
+    private static final String FRESH_DB = "migration-test-fresh";
+    private static final int FIRST_VERSION = 3;
+    private static final int LATEST_VERSION = AppDatabase.ALL_MIGRATIONS[AppDatabase.ALL_MIGRATIONS.length - 1].endVersion;
+
+    private static final String USERS_V3 = "CREATE TABLE IF NOT EXISTS `users` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+            + "`email` TEXT, `first_name` TEXT, `last_name` TEXT, `avatar` TEXT, `created_at` INTEGER)";
+    private static final String USERS_V4 = "CREATE TABLE IF NOT EXISTS `users` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+            + "`email` TEXT, `first_name` TEXT, `last_name` TEXT, `avatar` TEXT, `created_at` INTEGER, "
+            + "`content_hash` INTEGER NOT NULL DEFAULT 0)";
+    private static final String USERS_V9 = "CREATE TABLE IF NOT EXISTS `users` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+            + "`email` TEXT, `first_name` TEXT COLLATE NOCASE, `last_name` TEXT COLLATE NOCASE, `avatar` TEXT, "
+            + "`created_at` INTEGER, `content_hash` INTEGER NOT NULL DEFAULT 0)";
+    private static final String SYNC_CHECKPOINTS_V5 = "CREATE TABLE IF NOT EXISTS `sync_checkpoints` (`name` TEXT NOT NULL, "
+            + "`last_committed_page` INTEGER NOT NULL, `total_pages` INTEGER NOT NULL, `updated_at` INTEGER NOT NULL, "
+            + "PRIMARY KEY(`name`))";
+    private static final String SYNC_CHECKPOINTS_V6 = "CREATE TABLE IF NOT EXISTS `sync_checkpoints` (`name` TEXT NOT NULL, "
+            + "`last_committed_page` INTEGER NOT NULL, `total_pages` INTEGER NOT NULL, `per_page` INTEGER NOT NULL DEFAULT 0, "
+            + "`updated_at` INTEGER NOT NULL, PRIMARY KEY(`name`))";
+    private static final String INDEX_EMAIL = "CREATE INDEX IF NOT EXISTS `index_users_email` ON `users` (`email`)";
+    private static final String INDEX_LAST_NAME_FIRST_NAME =
+            "CREATE INDEX IF NOT EXISTS `index_users_last_name_first_name` ON `users` (`last_name`, `first_name`)";
+    private static final String INDEX_FIRST_NAME = "CREATE INDEX IF NOT EXISTS `index_users_first_name` ON `users` (`first_name`)";
+    private static final String INDEX_CREATED_AT = "CREATE INDEX IF NOT EXISTS `index_users_created_at` ON `users` (`created_at`)";
+    private static final String USERS_FTS = "CREATE VIRTUAL TABLE IF NOT EXISTS `users_fts` USING FTS4("
+            + "`first_name` TEXT, `last_name` TEXT, `email` TEXT, content=`users`)";
+    private static final String[] USERS_FTS_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_BEFORE_UPDATE BEFORE UPDATE ON `users` "
+                    + "BEGIN DELETE FROM `users_fts` WHERE `docid`=OLD.`rowid`; END",
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_BEFORE_DELETE BEFORE DELETE ON `users` "
+                    + "BEGIN DELETE FROM `users_fts` WHERE `docid`=OLD.`rowid`; END",
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_AFTER_UPDATE AFTER UPDATE ON `users` "
+                    + "BEGIN INSERT INTO `users_fts`(`docid`, `first_name`, `last_name`, `email`) "
+                    + "VALUES (NEW.`rowid`, NEW.`first_name`, NEW.`last_name`, NEW.`email`); END",
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_AFTER_INSERT AFTER INSERT ON `users` "
+                    + "BEGIN INSERT INTO `users_fts`(`docid`, `first_name`, `last_name`, `email`) "
+                    + "VALUES (NEW.`rowid`, NEW.`first_name`, NEW.`last_name`, NEW.`email`); END"
+    };
+
+    /**
+     * The statements Room created each shipped version with, indexed from {@link #FIRST_VERSION}.
+     * The newest version is not listed; Room creates it from the current entities.
+     */
+    private static final List<List<String>> SCHEMAS = Arrays.asList(
+            // 3: the users table as of the first version in the repository
+            Arrays.asList(USERS_V3),
+            // 4: content hashes
+            Arrays.asList(USERS_V4),
+            // 5: sync checkpoints
+            Arrays.asList(USERS_V4, SYNC_CHECKPOINTS_V5),
+            // 6: page size of a checkpoint
+            Arrays.asList(USERS_V4, SYNC_CHECKPOINTS_V6),
+            // 7: indexes on the users table
+            Arrays.asList(USERS_V4, INDEX_EMAIL, INDEX_LAST_NAME_FIRST_NAME, INDEX_CREATED_AT, SYNC_CHECKPOINTS_V6),
+            // 8: full-text index
+            concat(Arrays.asList(USERS_V4, INDEX_EMAIL, INDEX_LAST_NAME_FIRST_NAME, INDEX_CREATED_AT, USERS_FTS,
+                    SYNC_CHECKPOINTS_V6), USERS_FTS_TRIGGERS),
+            // 9: NOCASE names and the first_name index
+            concat(Arrays.asList(USERS_V9, INDEX_EMAIL, INDEX_LAST_NAME_FIRST_NAME, INDEX_FIRST_NAME, INDEX_CREATED_AT,
+                    USERS_FTS, SYNC_CHECKPOINTS_V6), USERS_FTS_TRIGGERS)
+    );
+
+    private final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    private final List<SupportSQLiteOpenHelper> openHelpers = new ArrayList<>();
+
+    @After
+    public void cleanUp() {
+        for (SupportSQLiteOpenHelper openHelper : openHelpers) {
+            openHelper.close();
+        }
+        context.deleteDatabase(TEST_DB);
+        context.deleteDatabase(FRESH_DB);
+    }
+
+    @Test
+    public void everyVersionHasASchemaAndAMigration() {
+        assertEquals(LATEST_VERSION - FIRST_VERSION, SCHEMAS.size());
+        for (int version = 1; version < LATEST_VERSION; version++) {
+            Migration migration = AppDatabase.ALL_MIGRATIONS[version - 1];
+            assertEquals(version, migration.startVersion);
+            assertEquals(version + 1, migration.endVersion);
+        }
+    }
+
+    @Test
+    public void migrate3To4() {
+        migrateStep(3);
+    }
+
+    @Test
+    public void migrate4To5() {
+        migrateStep(4);
+    }
+
+    @Test
+    public void migrate5To6() {
+        migrateStep(5);
+    }
+
+    @Test
+    public void migrate6To7() {
+        migrateStep(6);
+    }
+
+    @Test
+    public void migrate7To8() {
+        migrateStep(7);
+    }
+
+    @Test
+    public void migrate8To9() {
+        migrateStep(8);
+    }
+
+    @Test
+    public void migrate9To10() {
+        migrateStep(9);
+    }
+
+    @Test
+    public void usersFromVersion3SurviveEveryMigration() {
+        SupportSQLiteDatabase db = create(TEST_DB, FIRST_VERSION);
+        db.execSQL("INSERT INTO users (id, email, first_name, last_name, avatar) "
+                + "VALUES (7, 'michael.lawson@reqres.in', 'Michael', 'Lawson', 'https://reqres.in/img/faces/7-image.jpg')");
+        db.close();
+
+        db = migrate(TEST_DB, FIRST_VERSION, LATEST_VERSION);
+
+        assertEquals(describe(freshDatabase(LATEST_VERSION)), describe(db));
+        try (Cursor cursor = db.query("SELECT email, first_name, last_name, created_at, content_hash FROM users WHERE id = 7")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("michael.lawson@reqres.in", cursor.getString(0));
+            assertEquals("Michael", cursor.getString(1));
+            assertEquals("Lawson", cursor.getString(2));
+            assertTrue(cursor.isNull(3));
+            assertEquals(0, cursor.getLong(4));
+        }
+        // The full-text index built in version 8 covers users that existed before it
+        assertEquals(Arrays.asList(7), queryIds(db, "SELECT docid FROM users_fts WHERE users_fts MATCH 'lawson'"));
+    }
+
+    @Test
+    public void migration8To9KeepsIdsAndRecreatesTheFullTextTriggers() {
+        SupportSQLiteDatabase db = create(TEST_DB, 8);
+        db.execSQL("INSERT INTO users (id, email, first_name, last_name, content_hash) VALUES (5, 'bob@reqres.in', 'Bob', 'Stone', 11)");
+        db.execSQL("INSERT INTO users (id, email, first_name, last_name, content_hash) VALUES (9, 'alice@reqres.in', 'alice', 'Reed', 12)");
+        db.close();
+
+        db = migrate(TEST_DB, 8, 9);
+
+        assertEquals(Arrays.asList(5, 9), queryIds(db, "SELECT id FROM users ORDER BY id"));
+        // NOCASE puts "alice" before "Bob"; under BINARY every upper-case name sorts first
+        assertEquals(Arrays.asList(9, 5), queryIds(db, "SELECT id FROM users ORDER BY first_name"));
+        try (Cursor cursor = db.query("SELECT content_hash FROM users WHERE id = 5")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(11, cursor.getLong(0));
+        }
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM sqlite_master WHERE type = 'trigger' "
+                + "AND tbl_name = 'users' AND name LIKE 'room_fts_content_sync_users_fts_%'")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(4, cursor.getInt(0));
+        }
+
+        // Rows copied into the rebuilt table are found, and the triggers keep the index in sync from now on
+        assertEquals(Arrays.asList(5), queryIds(db, "SELECT docid FROM users_fts WHERE users_fts MATCH 'bob'"));
+        db.execSQL("INSERT INTO users (id, email, first_name, last_name) VALUES (12, 'carol@reqres.in', 'Carol', 'Hart')");
+        db.execSQL("UPDATE users SET last_name = 'Weaver' WHERE id = 9");
+        db.execSQL("DELETE FROM users WHERE id = 5");
+        assertEquals(Arrays.asList(12), queryIds(db, "SELECT docid FROM users_fts WHERE users_fts MATCH 'carol'"));
+        assertEquals(Arrays.asList(9), queryIds(db, "SELECT docid FROM users_fts WHERE users_fts MATCH 'weaver'"));
+        assertTrue(queryIds(db, "SELECT docid FROM users_fts WHERE users_fts MATCH 'reed'").isEmpty());
+        assertTrue(queryIds(db, "SELECT docid FROM users_fts WHERE users_fts MATCH 'bob'").isEmpty());
+    }
+
+    /**
+     * Opens a version 3 database with Room itself, which migrates it and checks the result against
+     * the schema compiled into the app.
+     */
+    @Test
+    public void migratedDatabaseOpensWithRoom() {
+        SupportSQLiteDatabase db = create(TEST_DB, FIRST_VERSION);
+        db.execSQL("INSERT INTO users (id, email, first_name, last_name, avatar) "
+                + "VALUES (2, 'janet.weaver@reqres.in', 'Janet', 'Weaver', NULL)");
+        db.close();
+
+        AppDatabase database = Room.databaseBuilder(context, AppDatabase.class, TEST_DB)
+                .addMigrations(AppDatabase.ALL_MIGRATIONS)
+                .build();
+        try {
+            User user = database.userDao().getUserById(2);
+            assertNotNull(user);
+            assertEquals("Janet", user.getFirstName());
+        } finally {
+            database.close();
+        }
+    }
+
+    /**
+     * Creates the database at the given version and checks the single migration to the next one.
+     *
+     * @param from The version to migrate from.
+     */
+    private void migrateStep(int from) {
+        create(TEST_DB, from).close();
+        SupportSQLiteDatabase db = migrate(TEST_DB, from, from + 1);
+        assertEquals(describe(freshDatabase(from + 1)), describe(db));
+    }
+
+    /**
+     * Creates a database with the statements of a shipped version.
+     *
+     * @param name    The database name.
+     * @param version A version listed in {@link #SCHEMAS}.
+     * @return The open database.
+     */
+    private SupportSQLiteDatabase create(String name, int version) {
+        final List<String> statements = SCHEMAS.get(version - FIRST_VERSION);
+        return open(name, new SupportSQLiteOpenHelper.Callback(version) {
+            @Override
+            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                for (String statement : statements) {
+                    db.execSQL(statement);
+                }
+            }
+
+            @Override
+            public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                throw new AssertionError("The database should be new");
+            }
+        });
+    }
+
+    /**
+     * Reopens a database at a newer version, running the app's migrations in between.
+     *
+     * @param name The database name.
+     * @param from The version the database is at.
+     * @param to   The version to migrate to.
+     * @return The open, migrated database.
+     */
+    private SupportSQLiteDatabase migrate(String name, final int from, int to) {
+        final List<Migration> migrations = Arrays.asList(AppDatabase.ALL_MIGRATIONS).subList(from - 1, to - 1);
+        return open(name, new SupportSQLiteOpenHelper.Callback(to) {
+            @Override
+            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                throw new AssertionError("The database should exist");
+            }
+
+            @Override
+            public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                assertEquals(from, oldVersion);
+                for (Migration migration : migrations) {
+                    migration.migrate(db);
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates a fresh database at the given version: from {@link #SCHEMAS} for a shipped version,
+     * and through Room for the newest one.
+     *
+     * @param version The version to create.
+     * @return The open database.
+     */
+    private SupportSQLiteDatabase freshDatabase(int version) {
+        context.deleteDatabase(FRESH_DB);
+        if (version < LATEST_VERSION) {
+            return create(FRESH_DB, version);
+        }
+        AppDatabase database = Room.databaseBuilder(context, AppDatabase.class, FRESH_DB).build();
+        openHelpers.add(database.getOpenHelper());
+        return database.getOpenHelper().getWritableDatabase();
+    }
+
+    private SupportSQLiteDatabase open(String name, SupportSQLiteOpenHelper.Callback callback) {
+        SupportSQLiteOpenHelper openHelper = new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(context).name(name).callback(callback).build());
+        openHelpers.add(openHelper);
+        return openHelper.getWritableDatabase();
+    }
+
+    /**
+     * Describes the schema of a database: every column with its type, nullability, default and
+     * primary key position, every index with its columns, and every trigger by name. Columns are
+     * listed by name, since a column added by a migration comes last while a fresh table may
+     * declare it earlier. Room's and Android's own bookkeeping tables are left out.
+     *
+     * @param db The database to describe.
+     * @return One sorted line per column, index and trigger.
+     */
+    private static List<String> describe(SupportSQLiteDatabase db) {
+        List<String> schema = new ArrayList<>();
+        List<String> tables = new ArrayList<>();
+        try (Cursor cursor = db.query("SELECT type, name FROM sqlite_master WHERE name NOT LIKE 'sqlite_%' "
+                + "AND name NOT IN ('room_master_table', 'android_metadata')")) {
+            while (cursor.moveToNext()) {
+                if ("table".equals(cursor.getString(0))) {
+                    tables.add(cursor.getString(1));
+                } else if ("trigger".equals(cursor.getString(0))) {
+                    schema.add("trigger " + cursor.getString(1));
+                }
+            }
+        }
+        for (String table : tables) {
+            try (Cursor cursor = db.query("PRAGMA table_info(`" + table + "`)")) {
+                while (cursor.moveToNext()) {
+                    schema.add("column " + table + "." + cursor.getString(1) + " " + cursor.getString(2)
+                            + " notnull=" + cursor.getInt(3) + " default=" + cursor.getString(4) + " pk=" + cursor.getInt(5));
+                }
+            }
+            List<String> indexes = new ArrayList<>();
+            try (Cursor cursor = db.query("PRAGMA index_list(`" + table + "`)")) {
+                while (cursor.moveToNext()) {
+                    if (!cursor.getString(1).startsWith("sqlite_autoindex")) {
+                        indexes.add(cursor.getString(1) + " unique=" + cursor.getInt(2));
+                    }
+                }
+            }
+            for (String index : indexes) {
+                StringBuilder columns = new StringBuilder();
+                try (Cursor cursor = db.query("PRAGMA index_info(`" + index.substring(0, index.indexOf(' ')) + "`)")) {
+                    while (cursor.moveToNext()) {
+                        columns.append(' ').append(cursor.getString(2));
+                    }
+                }
+                schema.add("index " + table + "." + index + columns);
+            }
+        }
+        Collections.sort(schema);
+        return schema;
+    }
+
+    private static List<Integer> queryIds(SupportSQLiteDatabase db, String sql) {
+        List<Integer> ids = new ArrayList<>();
+        try (Cursor cursor = db.query(sql)) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getInt(0));
+            }
+        }
+        return ids;
+    }
+
+    private static List<String> concat(List<String> statements, String... more) {
+        List<String> all = new ArrayList<>(statements);
+        all.addAll(Arrays.asList(more));
+        return all;
+    }
+}
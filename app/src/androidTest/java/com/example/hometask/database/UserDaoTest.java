@@ -0,0 +1,112 @@
+package com.example.hometask.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hometask.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link UserDao#mergeUsers(java.util.List, MergeMode)} and the full-text search against an in-memory database.
+ */
+@RunWith(AndroidJUnit4.class)
+public class UserDaoTest {
+
+    private AppDatabase database;
+    private UserDao userDao;
+
+    @Before
+    public void openDatabase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        userDao = database.userDao();
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+    }
+
+    @Test
+    public void mergeInsertsTheLastCopyOfANewUserRepeatedInTheBatch() {
+        MergeResult result = userDao.mergeUsers(Arrays.asList(
+                createUser(1, "George"), createUser(2, "Janet"), createUser(1, "Emma")), MergeMode.DIFF);
+
+        assertEquals(2, result.getInserted());
+        assertEquals(0, result.getUpdated());
+        assertEquals(0, result.getUnchanged());
+        assertEquals(2, userDao.countUsers());
+        assertEquals("Emma", userDao.getUserById(1).getFirstName());
+    }
+
+    @Test
+    public void mergeUpdatesAStoredUserFromTheLastCopyInTheBatch() {
+        userDao.mergeUsers(Arrays.asList(createUser(1, "George")), MergeMode.DIFF);
+
+        MergeResult result = userDao.mergeUsers(Arrays.asList(
+                createUser(1, "Emma"), createUser(1, "Eve")), MergeMode.DIFF);
+
+        assertEquals(0, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(0, result.getUnchanged());
+        assertEquals("Eve", userDao.getUserById(1).getFirstName());
+    }
+
+    @Test
+    public void mergeCountsAStoredUserRepeatedWithTheSameContentOnce() {
+        userDao.mergeUsers(Arrays.asList(createUser(1, "George")), MergeMode.DIFF);
+
+        MergeResult result = userDao.mergeUsers(Arrays.asList(
+                createUser(1, "Emma"), createUser(1, "George")), MergeMode.DIFF);
+
+        assertEquals(0, result.getInserted());
+        assertEquals(0, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertEquals("George", userDao.getUserById(1).getFirstName());
+    }
+
+    @Test
+    public void relevanceSearchPutsTheUsersWithTheMostHitsFirst() {
+        User janet = createUser(1, "Janet");
+        User jan = createUser(2, "Jan");
+        jan.setLastName("Janssen");
+        jan.setEmail("jan.janssen@reqres.in");
+        User george = createUser(3, "George");
+        userDao.mergeUsers(Arrays.asList(janet, jan, george), MergeMode.DIFF);
+
+        List<User> byRelevance = userDao.searchUsers("jan*", UserSort.RELEVANCE, 10);
+        List<User> byId = userDao.searchUsers("jan*", UserSort.ID, 10);
+
+        assertEquals(Arrays.asList(2, 1), idsOf(byRelevance));
+        assertEquals(Arrays.asList(1, 2), idsOf(byId));
+        assertEquals("Janssen", byRelevance.get(0).getLastName());
+    }
+
+    private static List<Integer> idsOf(List<User> users) {
+        List<Integer> ids = new ArrayList<>();
+        for (User user : users) {
+            ids.add(user.getId());
+        }
+        return ids;
+    }
+
+    private static User createUser(int id, String firstName) {
+        User user = new User(firstName.toLowerCase() + "@reqres.in", firstName, "Bluth",
+                "https://reqres.in/img/faces/" + id + "-image.jpg");
+        user.setId(id);
+        return user;
+    }
+}
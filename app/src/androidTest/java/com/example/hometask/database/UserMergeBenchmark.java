@@ -0,0 +1,120 @@
+package com.example.hometask.database;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hometask.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures how long merging a sync's users into the database takes, with the batched
+ * {@link UserDao#mergeUsers(List, MergeMode)} and with the per-user lookup and insert it replaced.
+ * The database is a file on the device, so every implicit transaction of the old loop pays its journal sync.
+ * Timings are written to logcat under the tag "UserMergeBenchmark".
+ */
+@RunWith(AndroidJUnit4.class)
+public class UserMergeBenchmark {
+
+    private static final String TAG = "UserMergeBenchmark";
+    private static final String DATABASE_NAME = "merge-benchmark";
+
+    private Context context;
+    private AppDatabase database;
+    private UserDao userDao;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        database = Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME).build();
+        userDao = database.userDao();
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void merge1k() {
+        compare(1_000);
+    }
+
+    @Test
+    public void merge10k() {
+        compare(10_000);
+    }
+
+    @Test
+    public void merge100k() {
+        compare(100_000);
+    }
+
+    /**
+     * Merges the same users into an empty table with both strategies, then merges them a second
+     * time with the batched one, where every user is already stored.
+     * @param count The number of users to merge.
+     */
+    private void compare(int count) {
+        long start = SystemClock.elapsedRealtime();
+        mergeOneByOne(createUsers(count));
+        long oneByOneMillis = SystemClock.elapsedRealtime() - start;
+        assertEquals(count, userDao.countUsers());
+        database.clearAllTables();
+
+        start = SystemClock.elapsedRealtime();
+        MergeResult inserted = userDao.mergeUsers(createUsers(count), MergeMode.DIFF);
+        long batchedMillis = SystemClock.elapsedRealtime() - start;
+        assertEquals(count, inserted.getInserted());
+        assertEquals(count, userDao.countUsers());
+
+        start = SystemClock.elapsedRealtime();
+        MergeResult unchanged = userDao.mergeUsers(createUsers(count), MergeMode.DIFF);
+        long batchedUnchangedMillis = SystemClock.elapsedRealtime() - start;
+        assertEquals(count, unchanged.getUnchanged());
+
+        Log.i(TAG, count + " users: one by one " + oneByOneMillis + " ms, batched " + batchedMillis
+                + " ms, batched again with nothing to change " + batchedUnchangedMillis + " ms");
+    }
+
+    /**
+     * The merge as it was before batching: one lookup and, for a new user, one insert per user,
+     * each in its own implicit transaction.
+     * @param apiUsers The users to merge.
+     */
+    private void mergeOneByOne(List<User> apiUsers) {
+        for (User apiUser : apiUsers) {
+            if (userDao.getUserById(apiUser.getId()) == null) {
+                apiUser.setCreatedAt(new Date());
+                userDao.insertUser(apiUser);
+            }
+        }
+    }
+
+    private static List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            User user = new User("user" + i + "@reqres.in", "First" + i, "Last" + i,
+                    "https://reqres.in/img/faces/" + (i % 12 + 1) + "-image.jpg");
+            user.setId(i);
+            users.add(user);
+        }
+        return users;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.hometask.repository;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hometask.api.Histogram;
+import com.example.hometask.database.AppDatabase;
+import com.example.hometask.database.MergeMode;
+import com.example.hometask.database.UserDao;
+import com.example.hometask.database.UserSort;
+import com.example.hometask.model.User;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures how long loading the first page of the user list takes while a 10k-user sync is
+ * being merged, with the executor layout UserRepository had before and has now:
+ * <ul>
+ *     <li>before: one single-threaded executor for every operation, rollback journal</li>
+ *     <li>after: a pool of readers and a single writer, write-ahead log</li>
+ * </ul>
+ * The sync is merged page by page on the writer, the way UserRepository commits fetched pages, with
+ * every page queued at once as on a fast network. A list load is submitted every few milliseconds
+ * until the sync is done. The database is a file on the device. Timings are written to logcat under
+ * the tag "ListLoadDuringSyncBenchmark".
+ */
+@RunWith(AndroidJUnit4.class)
+public class ListLoadDuringSyncBenchmark {
+
+    private static final String TAG = "ListLoadDuringSyncBenchmark";
+    private static final String DATABASE_NAME = "list-load-benchmark";
+    private static final int SYNC_USERS = 10_000;
+    private static final int USERS_PER_PAGE = 100;
+    private static final int LIST_PAGE_SIZE = 30;
+    private static final int READ_THREADS = 4;
+    private static final long LOAD_INTERVAL_MILLIS = 5;
+
+    private final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    private final List<InstrumentedExecutor> executors = new ArrayList<>();
+    private AppDatabase database;
+
+    @After
+    public void cleanUp() {
+        for (InstrumentedExecutor executor : executors) {
+            executor.shutdownNow();
+        }
+        if (database != null) {
+            database.close();
+        }
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void singleExecutorWithRollbackJournal() throws InterruptedException {
+        InstrumentedExecutor executor = newExecutor("single", 1);
+        run("single executor, rollback journal", RoomDatabase.JournalMode.TRUNCATE, executor, executor);
+    }
+
+    @Test
+    public void readersAndWriterWithWriteAheadLog() throws InterruptedException {
+        run("readers and writer, write-ahead log", RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING,
+                newExecutor("read", READ_THREADS), newExecutor("write", 1));
+    }
+
+    /**
+     * Merges the sync on the write executor and keeps loading the list on the read executor until it is done.
+     *
+     * @param label       How the configuration is named in the log.
+     * @param journalMode The journal mode the database is opened with.
+     * @param reads       The executor running the list loads.
+     * @param writes      The executor merging the sync.
+     */
+    private void run(String label, RoomDatabase.JournalMode journalMode, InstrumentedExecutor reads,
+                     InstrumentedExecutor writes) throws InterruptedException {
+        context.deleteDatabase(DATABASE_NAME);
+        database = Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME)
+                .setJournalMode(journalMode)
+                .build();
+        final UserDao userDao = database.userDao();
+        // Open the database before timing anything
+        userDao.countUsers();
+
+        int pages = SYNC_USERS / USERS_PER_PAGE;
+        final CountDownLatch synced = new CountDownLatch(pages);
+        long syncStart = SystemClock.elapsedRealtime();
+        for (int page = 0; page < pages; page++) {
+            final List<User> users = createUsers(page * USERS_PER_PAGE + 1, USERS_PER_PAGE);
+            writes.execute(() -> {
+                userDao.mergeUsers(users, MergeMode.DIFF);
+                synced.countDown();
+            });
+        }
+
+        final Histogram loadMillis = new Histogram();
+        List<CountDownLatch> loads = new ArrayList<>();
+        while (synced.getCount() > 0) {
+            final CountDownLatch loaded = new CountDownLatch(1);
+            final long submitted = SystemClock.elapsedRealtime();
+            reads.execute(() -> {
+                userDao.getUsersPage(UserSort.ID, null, LIST_PAGE_SIZE);
+                loadMillis.record(SystemClock.elapsedRealtime() - submitted);
+                loaded.countDown();
+            });
+            loads.add(loaded);
+            SystemClock.sleep(LOAD_INTERVAL_MILLIS);
+        }
+        long syncMillis = SystemClock.elapsedRealtime() - syncStart;
+        for (CountDownLatch loaded : loads) {
+            assertTrue(loaded.await(60, TimeUnit.SECONDS));
+        }
+        assertEquals(SYNC_USERS, userDao.countUsers());
+
+        Log.i(TAG, label + ": " + loadMillis.getCount() + " list loads during a " + syncMillis + " ms sync of "
+                + SYNC_USERS + " users, latency p50 " + loadMillis.getPercentile(50) + " ms, p95 "
+                + loadMillis.getPercentile(95) + " ms, max " + loadMillis.getMax() + " ms");
+    }
+
+    private InstrumentedExecutor newExecutor(String name, int threads) {
+        InstrumentedExecutor executor = new InstrumentedExecutor(TAG + "-" + name, threads);
+        executors.add(executor);
+        return executor;
+    }
+
+    private static List<User> createUsers(int firstId, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int id = firstId; id < firstId + count; id++) {
+            User user = new User("user" + id + "@reqres.in", "First" + id, "Last" + id,
+                    "https://reqres.in/img/faces/" + (id % 12 + 1) + "-image.jpg");
+            user.setId(id);
+            users.add(user);
+        }
+        return users;
+    }
+}
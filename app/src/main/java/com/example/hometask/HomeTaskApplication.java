@@ -0,0 +1,21 @@
+package com.example.hometask;
+
+import android.app.Application;
+
+import com.example.hometask.api.RetrofitClient;
+
+/**
+ * HomeTaskApplication initializes application-wide networking at process start.
+ * It warms up a connection to the API host so the first sync does not pay for DNS and TLS.
+ */
+public class HomeTaskApplication extends Application {
+
+    /**
+     * Executes when the application process starts, before any activity is created.
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        RetrofitClient.prewarmConnection();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.hometask;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.integration.okhttp3.OkHttpUrlLoader;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.module.AppGlideModule;
+import com.example.hometask.api.RetrofitClient;
+
+import java.io.InputStream;
+
+/**
+ * HomeTaskGlideModule configures Glide for the application.
+ * Avatars are downloaded through the shared OkHttpClient instead of HttpURLConnection,
+ * so image loading reuses the same connection pool and dispatcher as the API.
+ */
+@GlideModule
+public final class HomeTaskGlideModule extends AppGlideModule {
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.replace(GlideUrl.class, InputStream.class,
+                new OkHttpUrlLoader.Factory(RetrofitClient.getSharedHttpClient()));
+    }
+
+    /**
+     * All configuration is done here, so the legacy manifest scan is not needed.
+     */
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
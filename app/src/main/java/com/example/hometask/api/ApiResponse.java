@@ -7,22 +7,43 @@ import com.google.gson.annotations.SerializedName;
  * It provides a structured way to handle API responses, allowing for consistent
  * processing of different data types.
  *
- * @param <T>  The type of data contained in the response.
- * @param data The actual data returned by the API.
- *             The @SerializedName annotation is used by Gson for JSON deserialization,
- *             mapping the JSON field "data" to this variable.
+ * @param <T>        The type of data contained in the response.
+ * @param page       The page number this response belongs to.
+ * @param perPage    The number of items the server puts on each page.
+ * @param total      The total number of items available across all pages.
+ * @param totalPages The total number of pages available.
+ * @param data       The actual data returned by the API.
+ *                   The @SerializedName annotations are used by Gson for JSON deserialization,
+ *                   mapping the JSON fields to these variables.
  */
-public record ApiResponse<T>(@SerializedName("data") T data) {
+public record ApiResponse<T>(@SerializedName("page") int page,
+                             @SerializedName("per_page") int perPage,
+                             @SerializedName("total") int total,
+                             @SerializedName("total_pages") int totalPages,
+                             @SerializedName("data") T data) {
 
     /**
      * Constructor for creating an ApiResponse object manually.
      * This can be useful for testing or when creating mock responses.
      *
-     * @param data The data to be wrapped in the ApiResponse.
+     * @param page       The page number of the response.
+     * @param perPage    The number of items per page.
+     * @param total      The total number of items.
+     * @param totalPages The total number of pages.
+     * @param data       The data to be wrapped in the ApiResponse.
      */
     public ApiResponse {
     }
 
+    /**
+     * Constructor for creating a single-page ApiResponse that carries no pagination metadata.
+     *
+     * @param data The data to be wrapped in the ApiResponse.
+     */
+    public ApiResponse(T data) {
+        this(1, 0, 0, 1, data);
+    }
+
     /**
      * Getter method for retrieving the data from the ApiResponse.
      *
@@ -32,4 +53,4 @@ public record ApiResponse<T>(@SerializedName("data") T data) {
     public T data() {
         return data;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.example.hometask.api;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * ApiResponseTypeAdapterFactory creates streaming adapters for ApiResponse of any data type.
+ * The pagination fields are read directly and the data is delegated to the adapter Gson has for
+ * the data type, so a paged list of users is parsed without any reflection on ApiResponse.
+ * Unknown top-level fields, such as the API's "support" block, are skipped.
+ */
+final class ApiResponseTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != ApiResponse.class) {
+            return null;
+        }
+        Type dataType = Object.class;
+        if (type.getType() instanceof ParameterizedType) {
+            dataType = ((ParameterizedType) type.getType()).getActualTypeArguments()[0];
+        }
+        TypeAdapter<?> dataAdapter = gson.getAdapter(TypeToken.get(dataType));
+        return (TypeAdapter<T>) (TypeAdapter<?>) new ApiResponseTypeAdapter<>(dataAdapter);
+    }
+
+    /**
+     * Adapter for ApiResponse with a fixed data type.
+     * @param <D> The type of the data.
+     */
+    private static final class ApiResponseTypeAdapter<D> extends TypeAdapter<ApiResponse<D>> {
+        private final TypeAdapter<D> dataAdapter;
+
+        ApiResponseTypeAdapter(TypeAdapter<D> dataAdapter) {
+            this.dataAdapter = dataAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, ApiResponse<D> response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("page").value(response.page());
+            out.name("per_page").value(response.perPage());
+            out.name("total").value(response.total());
+            out.name("total_pages").value(response.totalPages());
+            out.name("data");
+            dataAdapter.write(out, response.data());
+            out.endObject();
+        }
+
+        @Override
+        public ApiResponse<D> read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            int page = 0;
+            int perPage = 0;
+            int total = 0;
+            int totalPages = 0;
+            D data = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "page":
+                        page = in.nextInt();
+                        break;
+                    case "per_page":
+                        perPage = in.nextInt();
+                        break;
+                    case "total":
+                        total = in.nextInt();
+                        break;
+                    case "total_pages":
+                        totalPages = in.nextInt();
+                        break;
+                    case "data":
+                        data = dataAdapter.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return new ApiResponse<>(page, perPage, total, totalPages, data);
+        }
+    }
+}
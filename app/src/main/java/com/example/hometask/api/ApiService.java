@@ -3,7 +3,9 @@ package com.example.hometask.api;
 import com.example.hometask.model.User;
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 import java.util.List;
 
 /**
@@ -15,10 +17,30 @@ public interface ApiService {
     /**
      * Fetches a list of users from the server.
      *
+     * The cached copy of the page, if any, is always revalidated with the server,
+     * so an unchanged page is answered with 304 Not Modified instead of a full body.
+     * The compact binary page format is preferred when the server offers it; JSON is the fallback.
+     *
      * @param page The page number to fetch. Used for pagination.
+     * @param perPage The number of users per page, or null to use the server's default.
+     *                Page numbers are only meaningful together with the page size they were requested with.
      * @return A Call object wrapping an ApiResponse containing a List of User objects.
      *         The ApiResponse also includes pagination information.
      */
+    @Headers({"Cache-Control: max-age=0", "Accept: application/x-users-page, application/json;q=0.9"})
+    @GET("users")
+    Call<ApiResponse<List<User>>> getUsers(@Query("page") int page, @Query("per_page") Integer perPage);
+
+    /**
+     * Fetches a page of users as a stream, so the users can be consumed
+     * while the response is still being downloaded. Cached copies are revalidated like in {@link #getUsers(int, Integer)}.
+     *
+     * @param page The page number to fetch. Used for pagination.
+     * @return A Call object wrapping a UserStream over the response body.
+     *         The caller is responsible for closing the stream.
+     */
+    @Streaming
+    @Headers("Cache-Control: max-age=0")
     @GET("users")
-    Call<ApiResponse<List<User>>> getUsers(@Query("page") int page);
+    Call<UserStream> streamUsers(@Query("page") int page);
 }
\ No newline at end of file
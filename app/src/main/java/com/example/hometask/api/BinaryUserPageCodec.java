@@ -0,0 +1,87 @@
+package com.example.hometask.api;
+
+import com.example.hometask.model.User;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okio.BufferedSource;
+
+/**
+ * BinaryUserPageCodec decodes a page of users in a compact length-prefixed binary format,
+ * as an alternative to JSON that needs no tokenizing or field-name matching to decode.
+ * All integers are 32-bit big-endian. The layout is:
+ * <pre>
+ * magic "UPG1" | page | per_page | total | total_pages | user count
+ * per user: id | email | first_name | last_name | avatar
+ * </pre>
+ * Each string is its UTF-8 byte length followed by the bytes; a length of -1 stands for null.
+ */
+public final class BinaryUserPageCodec {
+
+    /**
+     * Media type of the binary users page, used for content negotiation.
+     */
+    public static final MediaType MEDIA_TYPE = MediaType.get("application/x-users-page");
+
+    /**
+     * Leading bytes of every encoded page, "UPG1" in ASCII.
+     */
+    static final int MAGIC = 0x55504731;
+
+    /**
+     * Upper bound on the user count and string lengths accepted from the wire, to fail fast on corrupt input.
+     */
+    private static final int MAX_LENGTH = 1 << 20;
+
+    private BinaryUserPageCodec() {
+    }
+
+    /**
+     * Decodes a page of users.
+     *
+     * @param source The encoded page.
+     * @return The page with its pagination metadata.
+     * @throws IOException If the input is not a well-formed page.
+     */
+    public static ApiResponse<List<User>> decode(BufferedSource source) throws IOException {
+        if (source.readInt() != MAGIC) {
+            throw new ProtocolException("Not a binary users page");
+        }
+        int page = source.readInt();
+        int perPage = source.readInt();
+        int total = source.readInt();
+        int totalPages = source.readInt();
+        int count = checkLength(source.readInt());
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = source.readInt();
+            String email = readString(source);
+            String firstName = readString(source);
+            String lastName = readString(source);
+            String avatar = readString(source);
+            User user = new User(email, firstName, lastName, avatar);
+            user.setId(id);
+            users.add(user);
+        }
+        return new ApiResponse<>(page, perPage, total, totalPages, users);
+    }
+
+    private static String readString(BufferedSource source) throws IOException {
+        int length = source.readInt();
+        if (length == -1) {
+            return null;
+        }
+        return source.readUtf8(checkLength(length));
+    }
+
+    private static int checkLength(int length) throws ProtocolException {
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new ProtocolException("Invalid length " + length);
+        }
+        return length;
+    }
+}
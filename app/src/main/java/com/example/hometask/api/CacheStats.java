@@ -0,0 +1,63 @@
+package com.example.hometask.api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * CacheStats counts how the HTTP cache served each response.
+ * A hit is served from the cache without touching the network, a revalidation is a conditional
+ * request answered with 304 Not Modified, and a miss is a full response downloaded from the server.
+ * It is installed as an application interceptor so it sees the final response of every call.
+ */
+public final class CacheStats implements Interceptor {
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong revalidationCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+        Response networkResponse = response.networkResponse();
+        if (networkResponse == null) {
+            if (response.cacheResponse() != null) {
+                hitCount.incrementAndGet();
+            }
+        } else if (networkResponse.code() == 304 && response.cacheResponse() != null) {
+            revalidationCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return response;
+    }
+
+    /**
+     * Tells whether a response carries the same content the cache already held,
+     * either because it was served from the cache or because the server answered 304.
+     *
+     * @param response The raw OkHttp response.
+     * @return true if the body is the previously cached one.
+     */
+    public static boolean isUnchanged(Response response) {
+        Response networkResponse = response.networkResponse();
+        return response.cacheResponse() != null && (networkResponse == null || networkResponse.code() == 304);
+    }
+
+    public long getHitCount() { return hitCount.get(); }
+
+    public long getRevalidationCount() { return revalidationCount.get(); }
+
+    public long getMissCount() { return missCount.get(); }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + hitCount.get() + ", revalidations=" + revalidationCount.get()
+                + ", misses=" + missCount.get() + "}";
+    }
+}
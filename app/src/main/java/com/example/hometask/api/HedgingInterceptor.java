@@ -0,0 +1,315 @@
+package com.example.hometask.api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * HedgingInterceptor sends GET requests to the first of several equivalent mirrors and, if no
+ * answer has arrived within the hedge delay, sends the same request to another mirror as well.
+ * The first response wins and the other call is cancelled. A connection failure also triggers
+ * the hedge immediately, so a mirror that is down costs one failed attempt rather than a failed call.
+ * The hedge delay follows the observed latency: it is the configured percentile of recent
+ * network latencies, clamped to a minimum and maximum, so only the slow tail is duplicated.
+ * The calls themselves are made through a transport client, which owns the cache, connection pool
+ * and metrics; this interceptor is the only interceptor of the client Retrofit uses.
+ * Each intercepted call holds a thread of its client's dispatcher while it waits for the transport
+ * calls, so the transport client must have a dispatcher of its own: on a shared one, enough waiting
+ * calls would take every slot and the transport calls they wait for would never be scheduled.
+ * Every intercepted call also has an absolute deadline, after which it fails and cancels its transport calls.
+ */
+public final class HedgingInterceptor implements Interceptor {
+
+    /**
+     * Number of latency samples required before the percentile replaces the initial delay.
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * How often a waiting call checks whether it has been cancelled.
+     */
+    private static final long CANCEL_CHECK_MILLIS = 100;
+
+    private final OkHttpClient transport;
+    private final List<String> mirrors;
+    private final double percentile;
+    private final long initialDelayMillis;
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final long callTimeoutMillis;
+    private final Histogram latencyMillis = new Histogram();
+    private final AtomicInteger nextMirror = new AtomicInteger();
+    private final AtomicLong hedgesSent = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    /**
+     * Constructor for HedgingInterceptor.
+     *
+     * @param transport          The client that performs the actual calls. It must not share its dispatcher
+     *                           with the client this interceptor is installed in.
+     * @param mirrors            The base URLs of the mirrors, the primary one first. Requests are expected
+     *                           to target the primary base URL.
+     * @param percentile         The latency percentile used as hedge delay, between 0 and 100.
+     * @param initialDelayMillis The hedge delay used until enough latencies have been observed.
+     * @param minDelayMillis     The smallest hedge delay.
+     * @param maxDelayMillis     The largest hedge delay.
+     * @param callTimeoutMillis  How long an intercepted call may take in total, hedge included, at least 1.
+     */
+    public HedgingInterceptor(OkHttpClient transport, List<String> mirrors, double percentile,
+                              long initialDelayMillis, long minDelayMillis, long maxDelayMillis,
+                              long callTimeoutMillis) {
+        if (mirrors.isEmpty()) {
+            throw new IllegalArgumentException("At least one mirror is required");
+        }
+        if (callTimeoutMillis < 1) {
+            throw new IllegalArgumentException("callTimeoutMillis must be at least 1");
+        }
+        this.transport = transport;
+        this.mirrors = new ArrayList<>(mirrors);
+        this.percentile = percentile;
+        this.initialDelayMillis = initialDelayMillis;
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.callTimeoutMillis = callTimeoutMillis;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        if (mirrors.size() < 2 || !"GET".equals(request.method())) {
+            return await(chain, request, null);
+        }
+        int mirror = 1 + Math.abs(nextMirror.getAndIncrement() % (mirrors.size() - 1));
+        HttpUrl hedgeUrl = rewrite(request.url(), mirrors.get(mirror));
+        Request hedge = hedgeUrl != null ? request.newBuilder().url(hedgeUrl).build() : null;
+        return await(chain, request, hedge);
+    }
+
+    /**
+     * Sends the primary request, sends the hedge when it is due, and returns the first response.
+     * Fails with an InterruptedIOException once the call timeout has passed without a response.
+     */
+    private Response await(Chain chain, Request primary, Request hedge) throws IOException {
+        Exchange exchange = new Exchange();
+        long startedAt = System.nanoTime();
+        exchange.send(primary);
+        long hedgeAt = startedAt + TimeUnit.MILLISECONDS.toNanos(getHedgeDelayMillis());
+        long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(callTimeoutMillis);
+        IOException failure = null;
+        while (true) {
+            long now = System.nanoTime();
+            if (now - deadline >= 0) {
+                exchange.finish(null);
+                throw new InterruptedIOException("timeout");
+            }
+            long timeout = deadline - now;
+            if (hedge != null) {
+                timeout = Math.min(timeout, Math.max(hedgeAt - now, 0));
+            }
+            Outcome outcome = exchange.poll(chain, Math.min(timeout, TimeUnit.MILLISECONDS.toNanos(CANCEL_CHECK_MILLIS)));
+            if (outcome == null) {
+                if (hedge != null && System.nanoTime() >= hedgeAt) {
+                    exchange.send(hedge);
+                    hedgesSent.incrementAndGet();
+                    hedge = null;
+                }
+                continue;
+            }
+            if (outcome.response != null) {
+                exchange.finish(outcome.call);
+                if (outcome.response.networkResponse() != null) {
+                    latencyMillis.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                }
+                if (outcome.call.request() != primary) {
+                    hedgesWon.incrementAndGet();
+                }
+                return outcome.response;
+            }
+            if (failure == null) {
+                failure = outcome.failure;
+            }
+            if (hedge != null) {
+                // The primary failed outright; there is no point waiting for the delay
+                exchange.send(hedge);
+                hedgesSent.incrementAndGet();
+                hedge = null;
+            } else if (exchange.allFailed()) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Returns the current hedge delay: the configured percentile of recent latencies within the limits,
+     * or the initial delay until enough latencies have been recorded.
+     *
+     * @return The hedge delay in milliseconds.
+     */
+    public long getHedgeDelayMillis() {
+        if (latencyMillis.getCount() < MIN_SAMPLES) {
+            return initialDelayMillis;
+        }
+        return Math.max(minDelayMillis, Math.min(maxDelayMillis, latencyMillis.getPercentile(percentile)));
+    }
+
+    /**
+     * @return The latencies of calls answered by the network, in milliseconds.
+     */
+    public Histogram getLatencyMillis() { return latencyMillis; }
+
+    /**
+     * @return The number of hedged requests sent.
+     */
+    public long getHedgesSent() { return hedgesSent.get(); }
+
+    /**
+     * @return The number of calls answered by the hedged request rather than the primary one.
+     */
+    public long getHedgesWon() { return hedgesWon.get(); }
+
+    /**
+     * Moves a URL from the primary base URL to another mirror.
+     *
+     * @return The rewritten URL, or null if the URL does not start with the primary base URL.
+     */
+    private HttpUrl rewrite(HttpUrl url, String mirror) {
+        String primary = mirrors.get(0);
+        String value = url.toString();
+        if (!value.startsWith(primary)) {
+            return null;
+        }
+        return HttpUrl.parse(mirror + value.substring(primary.length()));
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "HedgingInterceptor{hedgeDelayMillis=" + getHedgeDelayMillis() + ", hedgesSent=" + hedgesSent.get()
+                + ", hedgesWon=" + hedgesWon.get() + "}";
+    }
+
+    /**
+     * Result of one of the calls of an exchange.
+     */
+    private static final class Outcome {
+        final Call call;
+        final Response response;
+        final IOException failure;
+
+        Outcome(Call call, Response response, IOException failure) {
+            this.call = call;
+            this.response = response;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * The calls made for a single intercepted request. Once a winner is chosen, the other calls are
+     * cancelled and responses that still arrive are closed.
+     */
+    private final class Exchange {
+        private final LinkedBlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+        private final List<Call> calls = new ArrayList<>();
+        private int failures;
+        private boolean finished;
+
+        void send(Request request) {
+            Call call = transport.newCall(request);
+            synchronized (this) {
+                calls.add(call);
+            }
+            call.enqueue(new Callback() {
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) {
+                    deliver(new Outcome(call, response, null));
+                }
+
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    deliver(new Outcome(call, null, e));
+                }
+            });
+        }
+
+        private void deliver(Outcome outcome) {
+            synchronized (this) {
+                if (!finished) {
+                    outcomes.add(outcome);
+                    return;
+                }
+            }
+            if (outcome.response != null) {
+                outcome.response.close();
+            }
+        }
+
+        /**
+         * Waits for the next outcome, cancelling every call if the intercepted call is cancelled.
+         *
+         * @return The outcome, or null if none arrived in time.
+         */
+        Outcome poll(Chain chain, long timeoutNanos) throws IOException {
+            if (chain.call().isCanceled()) {
+                finish(null);
+                throw new IOException("Canceled");
+            }
+            Outcome outcome;
+            try {
+                outcome = outcomes.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                finish(null);
+                throw new InterruptedIOException("Interrupted while waiting for a mirror");
+            }
+            if (outcome != null && outcome.response == null) {
+                synchronized (this) {
+                    failures++;
+                }
+            }
+            return outcome;
+        }
+
+        synchronized boolean allFailed() {
+            return failures >= calls.size();
+        }
+
+        /**
+         * Keeps the winning call and cancels the others.
+         *
+         * @param winner The call whose response is returned, or null if none is.
+         */
+        void finish(Call winner) {
+            List<Outcome> late = new ArrayList<>();
+            synchronized (this) {
+                finished = true;
+                outcomes.drainTo(late);
+                for (Call call : calls) {
+                    if (call != winner) {
+                        call.cancel();
+                    }
+                }
+            }
+            for (Outcome outcome : late) {
+                if (outcome.response != null) {
+                    outcome.response.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.hometask.api;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.hometask.model.User;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * NegotiatingConverterFactory decodes pages of users according to the content type the server chose.
+ * Responses in the {@link BinaryUserPageCodec} format are decoded directly into users; any other
+ * response is handed to the next converter, normally the Gson one, so JSON remains the fallback.
+ * It only handles ApiResponse&lt;List&lt;User&gt;&gt;, so it must be registered before the Gson converter factory.
+ */
+public final class NegotiatingConverterFactory extends Converter.Factory {
+
+    private NegotiatingConverterFactory() {
+    }
+
+    /**
+     * @return A new NegotiatingConverterFactory.
+     */
+    public static NegotiatingConverterFactory create() {
+        return new NegotiatingConverterFactory();
+    }
+
+    @Nullable
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(@NonNull Type type, @NonNull Annotation[] annotations,
+                                                            @NonNull Retrofit retrofit) {
+        if (!isUserPage(type)) {
+            return null;
+        }
+        final Converter<ResponseBody, ?> fallback = retrofit.nextResponseBodyConverter(this, type, annotations);
+        return body -> {
+            MediaType contentType = body.contentType();
+            if (contentType == null || !BinaryUserPageCodec.MEDIA_TYPE.type().equals(contentType.type())
+                    || !BinaryUserPageCodec.MEDIA_TYPE.subtype().equals(contentType.subtype())) {
+                return fallback.convert(body);
+            }
+            try {
+                return BinaryUserPageCodec.decode(body.source());
+            } finally {
+                body.close();
+            }
+        };
+    }
+
+    /**
+     * @return true if the type is ApiResponse&lt;List&lt;User&gt;&gt;.
+     */
+    private static boolean isUserPage(Type type) {
+        if (!(type instanceof ParameterizedType)
+                || ((ParameterizedType) type).getRawType() != ApiResponse.class) {
+            return false;
+        }
+        Type data = ((ParameterizedType) type).getActualTypeArguments()[0];
+        return data instanceof ParameterizedType
+                && ((ParameterizedType) data).getRawType() == List.class
+                && ((ParameterizedType) data).getActualTypeArguments()[0] == User.class;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.hometask.api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+/**
+ * NetworkMetrics records the timing and size of every HTTP call into fixed-size histograms.
+ * It is installed as the OkHttpClient's EventListener factory and only reads the clock on
+ * OkHttp events, so unlike body-level logging it never buffers or copies response bodies.
+ * All durations are in milliseconds.
+ */
+public final class NetworkMetrics implements EventListener.Factory {
+    private final Histogram dnsMillis = new Histogram();
+    private final Histogram connectMillis = new Histogram();
+    private final Histogram timeToFirstByteMillis = new Histogram();
+    private final Histogram transferMillis = new Histogram();
+    private final Histogram callMillis = new Histogram();
+    private final Histogram responseBytes = new Histogram();
+    private final AtomicLong failedCalls = new AtomicLong();
+
+    @NonNull
+    @Override
+    public EventListener create(@NonNull Call call) {
+        return new CallMetrics();
+    }
+
+    /**
+     * @return Time spent resolving host names, per lookup.
+     */
+    public Histogram getDnsMillis() { return dnsMillis; }
+
+    /**
+     * @return Time spent establishing connections, including the TLS handshake.
+     */
+    public Histogram getConnectMillis() { return connectMillis; }
+
+    /**
+     * @return Time from starting to send the request headers to receiving the response headers.
+     */
+    public Histogram getTimeToFirstByteMillis() { return timeToFirstByteMillis; }
+
+    /**
+     * @return Time spent reading response bodies.
+     */
+    public Histogram getTransferMillis() { return transferMillis; }
+
+    /**
+     * @return Total duration of successful calls.
+     */
+    public Histogram getCallMillis() { return callMillis; }
+
+    /**
+     * @return Response body sizes in bytes.
+     */
+    public Histogram getResponseBytes() { return responseBytes; }
+
+    /**
+     * @return Number of calls that failed or were canceled.
+     */
+    public long getFailedCalls() { return failedCalls.get(); }
+
+    /**
+     * Clears all recorded metrics.
+     */
+    public void reset() {
+        dnsMillis.reset();
+        connectMillis.reset();
+        timeToFirstByteMillis.reset();
+        transferMillis.reset();
+        callMillis.reset();
+        responseBytes.reset();
+        failedCalls.set(0);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "NetworkMetrics{dns=" + dnsMillis + ", connect=" + connectMillis + ", ttfb=" + timeToFirstByteMillis
+                + ", transfer=" + transferMillis + ", call=" + callMillis + ", bytes=" + responseBytes
+                + ", failed=" + failedCalls.get() + "}";
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Per-call listener holding the start timestamps of the phases in progress.
+     * OkHttp delivers the events of a call sequentially, so no synchronization is needed.
+     */
+    private final class CallMetrics extends EventListener {
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long requestStart;
+        private long bodyStart;
+
+        @Override
+        public void callStart(@NonNull Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> inetAddressList) {
+            dnsMillis.record(elapsedMillis(dnsStart));
+        }
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy,
+                               Protocol protocol) {
+            connectMillis.record(elapsedMillis(connectStart));
+        }
+
+        @Override
+        public void requestHeadersStart(@NonNull Call call) {
+            requestStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersStart(@NonNull Call call) {
+            timeToFirstByteMillis.record(elapsedMillis(requestStart));
+        }
+
+        @Override
+        public void responseBodyStart(@NonNull Call call) {
+            bodyStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(@NonNull Call call, long byteCount) {
+            transferMillis.record(elapsedMillis(bodyStart));
+            responseBytes.record(byteCount);
+        }
+
+        @Override
+        public void callEnd(@NonNull Call call) {
+            callMillis.record(elapsedMillis(callStart));
+        }
+
+        @Override
+        public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+            failedCalls.incrementAndGet();
+        }
+    }
+}
@@ -1,6 +1,29 @@
 package com.example.hometask.api;
 
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.example.hometask.model.User;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
 import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -8,7 +31,13 @@ import retrofit2.converter.gson.GsonConverterFactory;
 /**
  * RetrofitClient is a singleton class that provides a configured Retrofit instance
  * for making API calls. It sets up the Retrofit builder with a base URL, a Gson converter,
- * and an HTTP client with logging capabilities.
+ * and an HTTP client with a disk cache and network metrics.
+ * Body-level logging is only installed when explicitly enabled for debugging.
+ * When mirrors of the API are configured, requests are hedged across them.
+ * All clients derive from one application-wide OkHttpClient, so API calls and image loading share
+ * a single connection pool and dispatcher. The only exception are the calls a hedged request makes
+ * to the mirrors: they run on a dispatcher of their own, as the hedged request waits for them while
+ * holding a thread of the shared one.
  */
 public class RetrofitClient {
 
@@ -17,33 +46,262 @@ public class RetrofitClient {
      */
     private static final String BASE_URL = "https://reqres.in/api/";
 
+    /**
+     * Name of the HTTP cache directory inside the app's cache directory.
+     */
+    private static final String HTTP_CACHE_DIR = "http_cache";
+
+    /**
+     * Maximum size of the HTTP cache on disk.
+     */
+    private static final long HTTP_CACHE_SIZE = 10L * 1024 * 1024;
+
+    /**
+     * Number of idle keep-alive connections kept in the shared pool, enough for the API host,
+     * its mirrors and the avatar host.
+     */
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+
+    /**
+     * How long an idle connection is kept alive in the shared pool.
+     */
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    /**
+     * Maximum number of requests executed concurrently by the shared dispatcher, across all hosts.
+     */
+    private static final int MAX_REQUESTS = 32;
+
+    /**
+     * Maximum number of requests executed concurrently to a single host. Leaves room for the sync's
+     * page requests plus hedges and retries without queueing behind each other.
+     */
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+
+    /**
+     * Latency percentile after which a request is hedged to a mirror.
+     */
+    private static final double HEDGE_PERCENTILE = 95;
+
+    /**
+     * Hedge delay used until enough latencies have been observed.
+     */
+    private static final long HEDGE_INITIAL_DELAY_MILLIS = 1000;
+
+    /**
+     * Bounds of the hedge delay, so neither a fast nor a very slow history disables hedging.
+     */
+    private static final long HEDGE_MIN_DELAY_MILLIS = 50;
+    private static final long HEDGE_MAX_DELAY_MILLIS = 5000;
+
+    /**
+     * How long a hedged request may take in total before it fails, whichever mirrors are still pending.
+     */
+    private static final long HEDGE_CALL_TIMEOUT_MILLIS = 30_000;
+
+    /**
+     * Base URLs of equivalent mirrors of the API that requests may be hedged to.
+     */
+    private static List<String> mirrorUrls = Collections.emptyList();
+
+    /**
+     * The hedging interceptor, or null if no mirrors are configured.
+     */
+    private static HedgingInterceptor hedgingInterceptor = null;
+
+    /**
+     * The Gson instance shared by all converters, with streaming adapters for the API types.
+     */
+    private static Gson gson = null;
+
+    /**
+     * The application-wide OkHttpClient that owns the connection pool and dispatcher.
+     */
+    private static OkHttpClient sharedHttpClient = null;
+
     /**
      * The Retrofit instance. It's created lazily and cached for subsequent calls.
      */
     private static Retrofit retrofit = null;
 
+    /**
+     * The disk-backed HTTP cache shared by all calls.
+     */
+    private static Cache cache = null;
+
+    /**
+     * Hit, revalidation and miss counters of the HTTP cache.
+     */
+    private static final CacheStats cacheStats = new CacheStats();
+
+    /**
+     * Per-call timing and size histograms of all network calls.
+     */
+    private static final NetworkMetrics networkMetrics = new NetworkMetrics();
+
+    /**
+     * Whether request and response bodies are logged. Logging bodies buffers every response
+     * in memory, so it is off unless enabled for debugging.
+     */
+    private static boolean bodyLoggingEnabled = false;
+
+    /**
+     * Enables or disables body-level logging of network calls.
+     * Must be called before the first call to {@link #getClient(Context)} to take effect.
+     *
+     * @param enabled true to log request and response bodies.
+     */
+    public static synchronized void setBodyLoggingEnabled(boolean enabled) {
+        bodyLoggingEnabled = enabled;
+    }
+
+    /**
+     * Sets equivalent mirrors of the API. A request that has not been answered within the hedge delay
+     * is sent to a mirror as well, and the first response is used.
+     * Must be called before the first call to {@link #getClient(Context)} to take effect.
+     *
+     * @param mirrors Base URLs of the mirrors, in the same form as the primary base URL.
+     */
+    public static synchronized void setMirrorUrls(List<String> mirrors) {
+        mirrorUrls = new ArrayList<>(mirrors);
+    }
+
+    /**
+     * Returns the application-wide OkHttpClient. It carries no cache or interceptors of its own;
+     * clients with additional configuration are derived from it with {@link OkHttpClient#newBuilder()},
+     * which keeps the connection pool and dispatcher shared.
+     *
+     * @return The shared OkHttpClient.
+     */
+    public static synchronized OkHttpClient getSharedHttpClient() {
+        if (sharedHttpClient == null) {
+            sharedHttpClient = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .dispatcher(newDispatcher())
+                    .build();
+        }
+        return sharedHttpClient;
+    }
+
+    /**
+     * @return A dispatcher with the app's limits on concurrent requests.
+     */
+    private static Dispatcher newDispatcher() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        return dispatcher;
+    }
+
+    /**
+     * Returns the shared Gson instance. Users and paged responses are read by hand-written streaming
+     * adapters instead of reflection, which makes the first parse cheaper and allocates less per field.
+     *
+     * @return The shared Gson instance.
+     */
+    public static synchronized Gson getGson() {
+        if (gson == null) {
+            gson = new GsonBuilder()
+                    .registerTypeAdapter(User.class, new UserTypeAdapter())
+                    .registerTypeAdapterFactory(new ApiResponseTypeAdapterFactory())
+                    .create();
+        }
+        return gson;
+    }
+
+    /**
+     * Opens a connection to the API host in the background, so the DNS lookup and TLS handshake
+     * are done before the first sync. The connection stays in the shared pool for reuse.
+     * Failures are ignored; the first real call then simply connects itself.
+     */
+    public static void prewarmConnection() {
+        Request request = new Request.Builder().url(BASE_URL).head().build();
+        getSharedHttpClient().newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                response.close();
+            }
+
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                // Only a warm-up; nothing to report
+            }
+        });
+    }
+
     /**
      * Returns a configured Retrofit instance.
-     * If the instance doesn't exist, it creates one with logging and Gson conversion.
+     * If the instance doesn't exist, it creates one with caching, metrics and Gson conversion.
      *
+     * @param context Any context, used to locate the cache directory.
      * @return A Retrofit instance configured with the BASE_URL and necessary converters.
      */
-    public static Retrofit getClient() {
+    public static synchronized Retrofit getClient(Context context) {
         if (retrofit == null) {
-            // Set up logging interceptor for network calls
-            HttpLoggingInterceptor interceptor = new HttpLoggingInterceptor();
-            interceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+            // Responses are cached on disk; ApiService asks for revalidation so unchanged pages come back as 304
+            cache = new Cache(new File(context.getApplicationContext().getCacheDir(), HTTP_CACHE_DIR), HTTP_CACHE_SIZE);
+
+            // Build OkHttpClient with the cache, cache counters and per-call metrics on top of the shared pool
+            OkHttpClient.Builder clientBuilder = getSharedHttpClient().newBuilder()
+                    .cache(cache)
+                    .addInterceptor(cacheStats)
+                    .eventListenerFactory(networkMetrics);
+            if (bodyLoggingEnabled) {
+                HttpLoggingInterceptor interceptor = new HttpLoggingInterceptor();
+                interceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+                clientBuilder.addInterceptor(interceptor);
+            }
+            OkHttpClient client = clientBuilder.build();
 
-            // Build OkHttpClient with the interceptor
-            OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+            // With mirrors, Retrofit's client only hedges; the calls go through the client built above,
+            // on a dispatcher of their own so waiting hedged calls can never starve them of threads
+            if (!mirrorUrls.isEmpty()) {
+                List<String> mirrors = new ArrayList<>();
+                mirrors.add(BASE_URL);
+                mirrors.addAll(mirrorUrls);
+                OkHttpClient transport = client.newBuilder().dispatcher(newDispatcher()).build();
+                hedgingInterceptor = new HedgingInterceptor(transport, mirrors, HEDGE_PERCENTILE,
+                        HEDGE_INITIAL_DELAY_MILLIS, HEDGE_MIN_DELAY_MILLIS, HEDGE_MAX_DELAY_MILLIS,
+                        HEDGE_CALL_TIMEOUT_MILLIS);
+                OkHttpClient.Builder hedgingBuilder = client.newBuilder()
+                        .cache(null)
+                        .eventListener(EventListener.NONE);
+                hedgingBuilder.interceptors().clear();
+                client = hedgingBuilder.addInterceptor(hedgingInterceptor).build();
+            }
 
-            // Build and configure Retrofit instance
+            // Build and configure Retrofit instance.
+            // The streaming and negotiating converters only handle their own types and must come before the Gson converter.
+            Gson gson = getGson();
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
+                    .addConverterFactory(UserStreamConverterFactory.create(gson))
+                    .addConverterFactory(NegotiatingConverterFactory.create())
+                    .addConverterFactory(GsonConverterFactory.create(gson))
                     .client(client)
                     .build();
         }
         return retrofit;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return The hit, revalidation and miss counters of the HTTP cache.
+     */
+    public static CacheStats getCacheStats() {
+        return cacheStats;
+    }
+
+    /**
+     * @return The DNS, connect, time-to-first-byte, transfer and size histograms of all network calls.
+     */
+    public static NetworkMetrics getNetworkMetrics() {
+        return networkMetrics;
+    }
+
+    /**
+     * @return The hedge delay and hedge counters, or null if no mirrors are configured.
+     */
+    public static synchronized HedgingInterceptor getHedgingInterceptor() {
+        return hedgingInterceptor;
+    }
+}
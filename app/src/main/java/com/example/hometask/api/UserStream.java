@@ -0,0 +1,162 @@
+package com.example.hometask.api;
+
+import com.example.hometask.model.User;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.ResponseBody;
+
+/**
+ * UserStream reads a users page straight from the response body without materializing it.
+ * The pagination fields that precede the "data" array are available as soon as the stream
+ * is opened; users are then pulled out of the array in chunks with {@link #readChunk(List, int)}.
+ * The stream must be closed once the caller is done with it.
+ */
+public final class UserStream implements Closeable {
+    private final ResponseBody body;
+    private final JsonReader reader;
+    private final TypeAdapter<User> userAdapter;
+    private int page;
+    private int perPage;
+    private int total;
+    private int totalPages;
+    private boolean inData;
+
+    /**
+     * Opens the stream and consumes the response up to the first user of the "data" array.
+     *
+     * @param body        The streaming response body.
+     * @param userAdapter The adapter used to read each user.
+     * @throws IOException If the body cannot be read or is not a users page.
+     */
+    UserStream(ResponseBody body, TypeAdapter<User> userAdapter) throws IOException {
+        this.body = body;
+        this.reader = new JsonReader(body.charStream());
+        this.userAdapter = userAdapter;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("data".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                inData = true;
+                return;
+            }
+            readField(name);
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Reads up to maxUsers users from the "data" array into out.
+     * Once the end of the array is reached, the remaining top-level fields are consumed
+     * so that the pagination metadata is complete.
+     *
+     * @param out      The list the users are appended to.
+     * @param maxUsers The maximum number of users to read.
+     * @return The number of users read.
+     * @throws IOException If the body cannot be read or is malformed.
+     */
+    public int readChunk(List<? super User> out, int maxUsers) throws IOException {
+        int count = 0;
+        while (inData && count < maxUsers && reader.hasNext()) {
+            out.add(userAdapter.read(reader));
+            count++;
+        }
+        if (inData && !reader.hasNext()) {
+            endData();
+        }
+        return count;
+    }
+
+    /**
+     * Skips the users left in the "data" array without reading them, then consumes the
+     * remaining top-level fields so that the pagination metadata is complete.
+     *
+     * @throws IOException If the body cannot be read or is malformed.
+     */
+    public void skipRemaining() throws IOException {
+        if (!inData) {
+            return;
+        }
+        while (reader.hasNext()) {
+            reader.skipValue();
+        }
+        endData();
+    }
+
+    /**
+     * @return true while there may be more users left in the "data" array.
+     */
+    public boolean hasMore() {
+        return inData;
+    }
+
+    public int getPage() { return page; }
+
+    public int getPerPage() { return perPage; }
+
+    public int getTotal() { return total; }
+
+    public int getTotalPages() { return totalPages; }
+
+    /**
+     * Closes the "data" array and reads the top-level fields that follow it.
+     *
+     * @throws IOException If the body cannot be read or is malformed.
+     */
+    private void endData() throws IOException {
+        reader.endArray();
+        inData = false;
+        while (reader.hasNext()) {
+            readField(reader.nextName());
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Reads a top-level field, keeping the pagination values and skipping everything else.
+     *
+     * @param name The name of the field whose value is next in the reader.
+     * @throws IOException If the value cannot be read.
+     */
+    private void readField(String name) throws IOException {
+        if (reader.peek() != JsonToken.NUMBER) {
+            reader.skipValue();
+            return;
+        }
+        switch (name) {
+            case "page":
+                page = reader.nextInt();
+                break;
+            case "per_page":
+                perPage = reader.nextInt();
+                break;
+            case "total":
+                total = reader.nextInt();
+                break;
+            case "total_pages":
+                totalPages = reader.nextInt();
+                break;
+            default:
+                reader.skipValue();
+                break;
+        }
+    }
+
+    /**
+     * Closes the reader and releases the underlying connection.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } finally {
+            body.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.hometask.api;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.hometask.model.User;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * UserStreamConverterFactory turns a response body into a {@link UserStream} instead of
+ * deserializing the whole users page up front. It only handles the UserStream type,
+ * so it must be registered before the regular Gson converter factory.
+ * Endpoints returning UserStream should be annotated with @Streaming so the body is not buffered.
+ */
+public final class UserStreamConverterFactory extends Converter.Factory {
+    private final TypeAdapter<User> userAdapter;
+
+    private UserStreamConverterFactory(Gson gson) {
+        this.userAdapter = gson.getAdapter(User.class);
+    }
+
+    /**
+     * Creates a factory that reads users with the given Gson instance.
+     *
+     * @param gson The Gson instance providing the User adapter.
+     * @return A new UserStreamConverterFactory.
+     */
+    public static UserStreamConverterFactory create(Gson gson) {
+        return new UserStreamConverterFactory(gson);
+    }
+
+    @Nullable
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(@NonNull Type type, @NonNull Annotation[] annotations,
+                                                            @NonNull Retrofit retrofit) {
+        if (type != UserStream.class) {
+            return null;
+        }
+        return body -> {
+            try {
+                return new UserStream(body, userAdapter);
+            } catch (Exception e) {
+                body.close();
+                throw e;
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.hometask.api;
+
+import com.example.hometask.model.User;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * UserTypeAdapter reads and writes users in the API's JSON format without reflection.
+ * It maps the same names as the @SerializedName annotations on User (first_name, last_name)
+ * and ignores fields the app does not store. Fields that only exist locally, such as the
+ * creation date and the content hash, are neither read nor written.
+ */
+final class UserTypeAdapter extends TypeAdapter<User> {
+
+    @Override
+    public void write(JsonWriter out, User user) throws IOException {
+        if (user == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(user.getId());
+        out.name("email").value(user.getEmail());
+        out.name("first_name").value(user.getFirstName());
+        out.name("last_name").value(user.getLastName());
+        out.name("avatar").value(user.getAvatar());
+        out.endObject();
+    }
+
+    @Override
+    public User read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        int id = 0;
+        String email = null;
+        String firstName = null;
+        String lastName = null;
+        String avatar = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    id = in.nextInt();
+                    break;
+                case "email":
+                    email = nextStringOrNull(in);
+                    break;
+                case "first_name":
+                    firstName = nextStringOrNull(in);
+                    break;
+                case "last_name":
+                    lastName = nextStringOrNull(in);
+                    break;
+                case "avatar":
+                    avatar = nextStringOrNull(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        User user = new User(email, firstName, lastName, avatar);
+        user.setId(id);
+        return user;
+    }
+
+    private static String nextStringOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+}
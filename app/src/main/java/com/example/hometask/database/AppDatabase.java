@@ -9,13 +9,18 @@ import androidx.room.TypeConverters;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import com.example.hometask.model.SyncCheckpoint;
+import com.example.hometask.model.SyncPage;
 import com.example.hometask.model.User;
+import com.example.hometask.model.UserFts;
 
 /**
  * AppDatabase is the main database class for the application.
  * It uses Room persistence library to abstract the database operations.
+ * The database is opened in write-ahead logging mode, which gives it a pool of reader connections:
+ * reads run concurrently with each other and with the single writer, and see the last committed state.
  */
-@Database(entities = {User.class}, version = 3, exportSchema = false)
+@Database(entities = {User.class, UserFts.class, SyncCheckpoint.class, SyncPage.class}, version = 10, exportSchema = true)
 @TypeConverters({Converters.class})
 public abstract class AppDatabase extends RoomDatabase {
 
@@ -32,6 +37,14 @@ public abstract class AppDatabase extends RoomDatabase {
      */
     public abstract UserDao userDao();
 
+    /**
+     * Abstract method to get the SyncCheckpointDao.
+     * Room will generate an implementation of this method.
+     *
+     * @return SyncCheckpointDao instance for reading and writing sync progress.
+     */
+    public abstract SyncCheckpointDao syncCheckpointDao();
+
     /**
      * The singleton instance of the database.
      */
@@ -48,6 +61,149 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    /**
+     * Migration from version 2 to 3 of the database.
+     * Version 3 did not change the schema of the users table, so there is nothing to migrate;
+     * the migration only keeps upgrades from version 2 from wiping the database.
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // No schema changes
+        }
+    };
+
+    /**
+     * Migration from version 3 to 4 of the database.
+     * Adds a 'content_hash' column to the users table. Existing rows start at 0,
+     * so the next diff merge refreshes them once from the API.
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE users ADD COLUMN content_hash INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /**
+     * Migration from version 4 to 5 of the database.
+     * Adds the 'sync_checkpoints' table used to resume interrupted syncs.
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `sync_checkpoints` (`name` TEXT NOT NULL, "
+                    + "`last_committed_page` INTEGER NOT NULL, `total_pages` INTEGER NOT NULL, "
+                    + "`updated_at` INTEGER NOT NULL, PRIMARY KEY(`name`))");
+        }
+    };
+
+    /**
+     * Migration from version 5 to 6 of the database.
+     * Adds the page size to sync checkpoints, so a resumed sync requests the same pages.
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE sync_checkpoints ADD COLUMN per_page INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /**
+     * Migration from version 6 to 7 of the database.
+     * Adds indexes on the users table for email, (last_name, first_name) and created_at.
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_users_email` ON `users` (`email`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_users_last_name_first_name` ON `users` (`last_name`, `first_name`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_users_created_at` ON `users` (`created_at`)");
+        }
+    };
+
+    /**
+     * Migration from version 7 to 8 of the database.
+     * Adds the 'users_fts' full-text index over names and email, creates the triggers Room uses
+     * to keep it in sync with the users table, and indexes the existing users.
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `users_fts` USING FTS4("
+                    + "`first_name` TEXT, `last_name` TEXT, `email` TEXT, content=`users`)");
+            createUsersFtsTriggers(database);
+            database.execSQL("INSERT INTO `users_fts`(`users_fts`) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * Migration from version 8 to 9 of the database.
+     * Gives first_name and last_name the NOCASE collation and indexes first_name on its own, so the
+     * name order is read straight from an index. SQLite cannot change a column's collation in place,
+     * so the users table is rebuilt with the same rows and IDs; its indexes and full-text triggers
+     * are recreated and the full-text index is rebuilt against the new table.
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `users_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`email` TEXT, `first_name` TEXT COLLATE NOCASE, `last_name` TEXT COLLATE NOCASE, `avatar` TEXT, "
+                    + "`created_at` INTEGER, `content_hash` INTEGER NOT NULL DEFAULT 0)");
+            database.execSQL("INSERT INTO `users_new` (`id`, `email`, `first_name`, `last_name`, `avatar`, `created_at`, `content_hash`) "
+                    + "SELECT `id`, `email`, `first_name`, `last_name`, `avatar`, `created_at`, `content_hash` FROM `users`");
+            database.execSQL("DROP TABLE `users`");
+            database.execSQL("ALTER TABLE `users_new` RENAME TO `users`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_users_email` ON `users` (`email`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_users_last_name_first_name` ON `users` (`last_name`, `first_name`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_users_first_name` ON `users` (`first_name`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_users_created_at` ON `users` (`created_at`)");
+            createUsersFtsTriggers(database);
+            database.execSQL("INSERT INTO `users_fts`(`users_fts`) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * Migration from version 9 to 10 of the database.
+     * Adds the 'sync_pages' table, which records the validator of every merged page so a sync
+     * only skips a page whose content is known to be in the database. It starts empty, so the
+     * first sync after the upgrade merges every page once.
+     */
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `sync_pages` (`sync_name` TEXT NOT NULL, `page` INTEGER NOT NULL, "
+                    + "`per_page` INTEGER NOT NULL, `validator` TEXT NOT NULL, PRIMARY KEY(`sync_name`, `page`, `per_page`))");
+        }
+    };
+
+    /**
+     * Creates the triggers that keep 'users_fts' in sync with the users table, exactly as Room
+     * creates them for a new database.
+     *
+     * @param database The database being migrated.
+     */
+    static void createUsersFtsTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_BEFORE_UPDATE "
+                + "BEFORE UPDATE ON `users` BEGIN DELETE FROM `users_fts` WHERE `docid`=OLD.`rowid`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_BEFORE_DELETE "
+                + "BEFORE DELETE ON `users` BEGIN DELETE FROM `users_fts` WHERE `docid`=OLD.`rowid`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_AFTER_UPDATE "
+                + "AFTER UPDATE ON `users` BEGIN INSERT INTO `users_fts`(`docid`, `first_name`, `last_name`, `email`) "
+                + "VALUES (NEW.`rowid`, NEW.`first_name`, NEW.`last_name`, NEW.`email`); END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_users_fts_AFTER_INSERT "
+                + "AFTER INSERT ON `users` BEGIN INSERT INTO `users_fts`(`docid`, `first_name`, `last_name`, `email`) "
+                + "VALUES (NEW.`rowid`, NEW.`first_name`, NEW.`last_name`, NEW.`email`); END");
+    }
+
+    /**
+     * Every migration, in version order. Each version has one, so an upgrade never loses the local data.
+     */
+    static final Migration[] ALL_MIGRATIONS = {
+            MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8,
+            MIGRATION_8_9, MIGRATION_9_10
+    };
+
     /**
      * Gets the singleton instance of the database.
      * If the instance doesn't exist, it creates one.
@@ -62,8 +218,9 @@ public abstract class AppDatabase extends RoomDatabase {
                 if (INSTANCE == null) {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                                     AppDatabase.class, DATABASE_NAME)
-                            .addMigrations(MIGRATION_1_2)
-                            .fallbackToDestructiveMigration() // This will handle any unforeseen schema changes
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                            .addMigrations(ALL_MIGRATIONS)
+                            .fallbackToDestructiveMigrationOnDowngrade() // Only a downgrade has no migration path
                             .build();
                 }
             }
@@ -0,0 +1,17 @@
+package com.example.hometask.database;
+
+/**
+ * MergeMode decides how a merge treats API users that are already stored locally.
+ */
+public enum MergeMode {
+    /**
+     * Only users missing from the database are inserted; stored rows are never touched.
+     */
+    INSERT_ONLY,
+
+    /**
+     * Missing users are inserted, and stored rows are updated when the content hash of the
+     * incoming user differs from the one recorded at the last merge. Rows that did not change are skipped.
+     */
+    DIFF
+}
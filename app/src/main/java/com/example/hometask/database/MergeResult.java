@@ -0,0 +1,59 @@
+package com.example.hometask.database;
+
+/**
+ * MergeResult reports what a merge of API users into the local database did.
+ * Every incoming user is counted exactly once, as inserted, updated or unchanged.
+ */
+public class MergeResult {
+    private final int inserted;
+    private final int updated;
+    private final int unchanged;
+
+    /**
+     * Constructor for creating a MergeResult.
+     *
+     * @param inserted  Number of users that were not stored yet and have been inserted.
+     * @param updated   Number of stored users whose row has been rewritten.
+     * @param unchanged Number of stored users that were left untouched.
+     */
+    public MergeResult(int inserted, int updated, int unchanged) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * @return A MergeResult for a merge that did not see any users.
+     */
+    public static MergeResult empty() {
+        return new MergeResult(0, 0, 0);
+    }
+
+    /**
+     * Combines this result with another one, e.g. when a sync merges several pages.
+     *
+     * @param other The result to add.
+     * @return A new MergeResult holding the summed counts.
+     */
+    public MergeResult plus(MergeResult other) {
+        return new MergeResult(inserted + other.inserted, updated + other.updated, unchanged + other.unchanged);
+    }
+
+    public int getInserted() { return inserted; }
+
+    public int getUpdated() { return updated; }
+
+    public int getUnchanged() { return unchanged; }
+
+    /**
+     * @return The total number of users the merge looked at.
+     */
+    public int getTotal() {
+        return inserted + updated + unchanged;
+    }
+
+    @Override
+    public String toString() {
+        return "MergeResult{inserted=" + inserted + ", updated=" + updated + ", unchanged=" + unchanged + "}";
+    }
+}
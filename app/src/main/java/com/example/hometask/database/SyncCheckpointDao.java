@@ -0,0 +1,122 @@
+package com.example.hometask.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.example.hometask.model.SyncCheckpoint;
+import com.example.hometask.model.SyncPage;
+
+/**
+ * SyncCheckpointDao defines the database operations on sync checkpoints and on the validators
+ * of the pages a sync has merged.
+ * Room will generate an implementation of this interface.
+ */
+@Dao
+public interface SyncCheckpointDao {
+
+    /**
+     * Retrieves the checkpoint of a sync.
+     *
+     * @param name The name of the sync.
+     * @return The checkpoint, or null if the sync has none.
+     */
+    @Query("SELECT * FROM sync_checkpoints WHERE name = :name")
+    SyncCheckpoint getCheckpoint(String name);
+
+    /**
+     * Stores a checkpoint, replacing the previous one of the same sync.
+     *
+     * @param checkpoint The checkpoint to store.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void saveCheckpoint(SyncCheckpoint checkpoint);
+
+    /**
+     * Removes the checkpoint of a sync, typically once it has completed.
+     *
+     * @param name The name of the sync.
+     */
+    @Query("DELETE FROM sync_checkpoints WHERE name = :name")
+    void deleteCheckpoint(String name);
+
+    /**
+     * Retrieves the validator recorded for a merged page.
+     *
+     * @param name    The name of the sync.
+     * @param page    The page number.
+     * @param perPage The page size the page was requested with, or 0 for the server's default.
+     * @return The validator, or null if the page has not been merged with one.
+     */
+    @Query("SELECT validator FROM sync_pages WHERE sync_name = :name AND page = :page AND per_page = :perPage")
+    String getPageValidator(String name, int page, int perPage);
+
+    /**
+     * Records the validator of a merged page, replacing the previous one.
+     *
+     * @param page The page to record.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void savePage(SyncPage page);
+
+    /**
+     * Forgets the validator of a page.
+     *
+     * @param name    The name of the sync.
+     * @param page    The page number.
+     * @param perPage The page size the page was requested with, or 0 for the server's default.
+     */
+    @Query("DELETE FROM sync_pages WHERE sync_name = :name AND page = :page AND per_page = :perPage")
+    void deletePage(String name, int page, int perPage);
+
+    /**
+     * Forgets the validators of every page of a sync, so its next run merges every page again.
+     *
+     * @param name The name of the sync.
+     */
+    @Query("DELETE FROM sync_pages WHERE sync_name = :name")
+    void deletePages(String name);
+
+    /**
+     * Forgets the validators that a completed sync did not refresh: pages of another page size,
+     * and pages beyond the last one.
+     *
+     * @param name       The name of the sync.
+     * @param perPage    The page size of the completed sync.
+     * @param totalPages The number of pages of the completed sync.
+     */
+    @Query("DELETE FROM sync_pages WHERE sync_name = :name AND (per_page != :perPage OR page > :totalPages)")
+    void deleteStalePages(String name, int perPage, int totalPages);
+
+    /**
+     * Tells whether a page the server reports as not modified may be skipped: only if it was
+     * merged before with the same validator.
+     *
+     * @param name      The name of the sync.
+     * @param page      The page number.
+     * @param perPage   The page size the page was requested with, or 0 for the server's default.
+     * @param validator The validator of the response, or null if it has none.
+     * @return true if the local rows were merged from this exact page content.
+     */
+    default boolean isPageMerged(String name, int page, int perPage, String validator) {
+        return validator != null && validator.equals(getPageValidator(name, page, perPage));
+    }
+
+    /**
+     * Records the validator of a page that has just been merged. A page without a validator
+     * forgets any earlier one, so it is never skipped.
+     *
+     * @param name      The name of the sync.
+     * @param page      The page number.
+     * @param perPage   The page size the page was requested with, or 0 for the server's default.
+     * @param validator The validator of the merged response, or null if it has none.
+     */
+    default void recordMergedPage(String name, int page, int perPage, String validator) {
+        if (validator != null) {
+            savePage(new SyncPage(name, page, perPage, validator));
+        } else {
+            deletePage(name, page, perPage);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.hometask.database;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * UserContentHash is a lightweight projection of the users table holding only
+ * the ID and the content hash of a row, used to diff incoming users without loading full rows.
+ */
+public class UserContentHash {
+    private final int id;
+
+    @ColumnInfo(name = "content_hash")
+    private final long contentHash;
+
+    /**
+     * Constructor used by Room when reading the projection.
+     *
+     * @param id          The user's ID.
+     * @param contentHash The content hash stored for the user.
+     */
+    public UserContentHash(int id, long contentHash) {
+        this.id = id;
+        this.contentHash = contentHash;
+    }
+
+    public int getId() { return id; }
+
+    public long getContentHash() { return contentHash; }
+}
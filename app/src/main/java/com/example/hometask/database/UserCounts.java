@@ -0,0 +1,30 @@
+package com.example.hometask.database;
+
+/**
+ * UserCounts holds the user totals shown on the dashboard, counted by the database
+ * without loading any user rows.
+ */
+public class UserCounts {
+    private final int total;
+    private final int createdSince;
+
+    /**
+     * Constructor for creating UserCounts.
+     *
+     * @param total        Number of users in the database.
+     * @param createdSince Number of users created after the requested point in time.
+     */
+    public UserCounts(int total, int createdSince) {
+        this.total = total;
+        this.createdSince = createdSince;
+    }
+
+    public int getTotal() { return total; }
+
+    public int getCreatedSince() { return createdSince; }
+
+    @Override
+    public String toString() {
+        return "UserCounts{total=" + total + ", createdSince=" + createdSince + "}";
+    }
+}
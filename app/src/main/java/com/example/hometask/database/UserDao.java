@@ -5,11 +5,21 @@ import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.example.hometask.model.User;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * UserDao (Data Access Object) interface defines the database operations
@@ -19,6 +29,12 @@ import java.util.List;
 @Dao
 public interface UserDao {
 
+    /**
+     * Maximum number of bound variables used by a single query.
+     * SQLite builds before 3.32 reject statements with more than 999 variables.
+     */
+    int MAX_QUERY_VARIABLES = 900;
+
     /**
      * Retrieves all users from the database.
      *
@@ -27,6 +43,343 @@ public interface UserDao {
     @Query("SELECT * FROM users")
     List<User> getAllUsers();
 
+    /**
+     * Counts the users in the database without loading them.
+     *
+     * @return The number of users.
+     */
+    @Query("SELECT COUNT(*) FROM users")
+    int countUsers();
+
+    /**
+     * Counts the users created after a point in time. The range is answered from the
+     * created_at index without reading the table.
+     *
+     * @param since The point in time, in milliseconds since the epoch.
+     * @return The number of users created after it.
+     */
+    @Query("SELECT COUNT(*) FROM users WHERE created_at > :since")
+    int countUsersCreatedAfter(long since);
+
+    /**
+     * Counts all users and the users created after a point in time, in one transaction
+     * so both numbers describe the same state of the table.
+     *
+     * @param since The point in time, in milliseconds since the epoch.
+     * @return The counts.
+     */
+    @Transaction
+    default UserCounts getUserCounts(long since) {
+        return new UserCounts(countUsers(), countUsersCreatedAfter(since));
+    }
+
+    /**
+     * Returns the next page of users in ID order.
+     *
+     * @param afterId The ID of the last user of the previous page, or 0 for the first page.
+     * @param limit   The maximum number of users to return.
+     * @return The users with an ID greater than afterId, in ID order.
+     */
+    @Query("SELECT * FROM users WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<User> getUsersByIdAfter(int afterId, int limit);
+
+    /**
+     * Returns the next page of users without a first name, which sort before all others in name order.
+     *
+     * @param afterId The ID of the last user of the previous page, or 0 for the first page.
+     * @param limit   The maximum number of users to return.
+     * @return The users without a first name and an ID greater than afterId, in ID order.
+     */
+    @Query("SELECT * FROM users WHERE first_name IS NULL AND id > :afterId ORDER BY id LIMIT :limit")
+    List<User> getUsersWithoutNameAfter(int afterId, int limit);
+
+    /**
+     * Returns the next page of users in name order, after a user with a first name.
+     * The range on first_name lets SQLite start the scan of the first_name index at the key.
+     *
+     * @param firstName The first name of the last user of the previous page, or "" to start at the first name.
+     * @param afterId   The ID of the last user of the previous page, or 0 to start at the first name.
+     * @param limit     The maximum number of users to return.
+     * @return The following users by first name, ignoring case, then by ID.
+     */
+    @Query("SELECT * FROM users WHERE first_name >= :firstName COLLATE NOCASE "
+            + "AND (first_name > :firstName COLLATE NOCASE OR id > :afterId) "
+            + "ORDER BY first_name COLLATE NOCASE, id LIMIT :limit")
+    List<User> getUsersByNameAfter(String firstName, int afterId, int limit);
+
+    /**
+     * Returns the next page of users, newest first, after a user with a creation date.
+     * The range on created_at lets SQLite start the backward scan of the created_at index at the key.
+     *
+     * @param createdAt The creation date of the last user of the previous page, in milliseconds since the epoch,
+     *                  or Long.MAX_VALUE to start at the newest user.
+     * @param beforeId  The ID of the last user of the previous page, or Integer.MAX_VALUE to start at the newest user.
+     * @param limit     The maximum number of users to return.
+     * @return The following users with a creation date, by creation date, then by ID, both descending.
+     */
+    @Query("SELECT * FROM users WHERE created_at <= :createdAt AND (created_at < :createdAt OR id < :beforeId) "
+            + "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    List<User> getUsersByCreatedAtAfter(long createdAt, int beforeId, int limit);
+
+    /**
+     * Returns the next page of users without a creation date, which sort after all others when newest come first.
+     *
+     * @param beforeId The ID of the last user of the previous page, or Integer.MAX_VALUE for the first such user.
+     * @param limit    The maximum number of users to return.
+     * @return The following users without a creation date, by ID descending.
+     */
+    @Query("SELECT * FROM users WHERE created_at IS NULL AND id < :beforeId ORDER BY id DESC LIMIT :limit")
+    List<User> getUsersWithoutCreatedAtBefore(int beforeId, int limit);
+
+    /**
+     * Returns the previous page of users in ID order, nearest first.
+     *
+     * @param beforeId The ID of the first user of the following page.
+     * @param limit    The maximum number of users to return.
+     * @return The users with an ID less than beforeId, by ID descending.
+     */
+    @Query("SELECT * FROM users WHERE id < :beforeId ORDER BY id DESC LIMIT :limit")
+    List<User> getUsersByIdBefore(int beforeId, int limit);
+
+    /**
+     * Returns the previous page of users in name order, before a user with a first name, nearest first.
+     * Users without a first name are not included; they come before every named user.
+     *
+     * @param firstName The first name of the first user of the following page.
+     * @param beforeId  The ID of the first user of the following page.
+     * @param limit     The maximum number of users to return.
+     * @return The preceding users with a first name, by first name ignoring case, then by ID, both descending.
+     */
+    @Query("SELECT * FROM users WHERE first_name <= :firstName COLLATE NOCASE "
+            + "AND (first_name < :firstName COLLATE NOCASE OR id < :beforeId) "
+            + "ORDER BY first_name COLLATE NOCASE DESC, id DESC LIMIT :limit")
+    List<User> getUsersByNameBefore(String firstName, int beforeId, int limit);
+
+    /**
+     * Returns the previous page of users without a first name, nearest first.
+     *
+     * @param beforeId The ID of the first user of the following page, or Integer.MAX_VALUE for the last such user.
+     * @param limit    The maximum number of users to return.
+     * @return The users without a first name and an ID less than beforeId, by ID descending.
+     */
+    @Query("SELECT * FROM users WHERE first_name IS NULL AND id < :beforeId ORDER BY id DESC LIMIT :limit")
+    List<User> getUsersWithoutNameBefore(int beforeId, int limit);
+
+    /**
+     * Returns the previous page of users with a creation date when newest come first, nearest first,
+     * which makes it a page of older users in ascending order.
+     *
+     * @param createdAt The creation date of the first user of the following page, in milliseconds since the epoch,
+     *                  or Long.MIN_VALUE to start at the oldest user.
+     * @param afterId   The ID of the first user of the following page, or Integer.MIN_VALUE to start at the oldest user.
+     * @param limit     The maximum number of users to return.
+     * @return The preceding users with a creation date, by creation date, then by ID, both ascending.
+     */
+    @Query("SELECT * FROM users WHERE created_at >= :createdAt AND (created_at > :createdAt OR id > :afterId) "
+            + "ORDER BY created_at, id LIMIT :limit")
+    List<User> getUsersByCreatedAtBefore(long createdAt, int afterId, int limit);
+
+    /**
+     * Returns the previous page of users without a creation date when newest come first, nearest first.
+     *
+     * @param afterId The ID of the first user of the following page.
+     * @param limit   The maximum number of users to return.
+     * @return The users without a creation date and an ID greater than afterId, by ID ascending.
+     */
+    @Query("SELECT * FROM users WHERE created_at IS NULL AND id > :afterId ORDER BY id LIMIT :limit")
+    List<User> getUsersWithoutCreatedAtAfter(int afterId, int limit);
+
+    /**
+     * Returns a page of users in the given order using keyset pagination: the page starts right after
+     * the given user, found through the sort key instead of an offset, so reading any page costs the
+     * same no matter how deep into the list it is. Every order is served by an index scan.
+     * Users without a sort key are read by their own query, and a page that crosses from them
+     * to the users with a key, or back, is filled from both.
+     *
+     * @param sort  The order of the list.
+     * @param after The last user of the previous page, or null for the first page.
+     * @param limit The maximum number of users to return.
+     * @return The page of users.
+     */
+    @Transaction
+    default List<User> getUsersPage(UserSort sort, User after, int limit) {
+        List<User> page;
+        switch (sort) {
+            case NAME:
+                if (after != null && after.getFirstName() != null) {
+                    return getUsersByNameAfter(after.getFirstName(), after.getId(), limit);
+                }
+                page = new ArrayList<>(getUsersWithoutNameAfter(after == null ? 0 : after.getId(), limit));
+                if (page.size() < limit) {
+                    page.addAll(getUsersByNameAfter("", 0, limit - page.size()));
+                }
+                return page;
+            case CREATED_AT_DESC:
+                if (after != null && after.getCreatedAt() == null) {
+                    return getUsersWithoutCreatedAtBefore(after.getId(), limit);
+                }
+                page = new ArrayList<>(after == null
+                        ? getUsersByCreatedAtAfter(Long.MAX_VALUE, Integer.MAX_VALUE, limit)
+                        : getUsersByCreatedAtAfter(after.getCreatedAt().getTime(), after.getId(), limit));
+                if (page.size() < limit) {
+                    page.addAll(getUsersWithoutCreatedAtBefore(Integer.MAX_VALUE, limit - page.size()));
+                }
+                return page;
+            case RELEVANCE:
+                // The list has no query to rank by, so it falls back to ID order
+            case ID:
+            default:
+                return getUsersByIdAfter(after == null ? 0 : after.getId(), limit);
+        }
+    }
+
+    /**
+     * Returns the page of users right before the given user in the given order, the reverse of
+     * {@link #getUsersPage(UserSort, User, int)}. Each order is read backwards through the same index,
+     * nearest user first, and the page is returned in list order.
+     *
+     * @param sort   The order of the list.
+     * @param before The first user of the following page.
+     * @param limit  The maximum number of users to return.
+     * @return The page of users, in list order.
+     */
+    @Transaction
+    default List<User> getUsersPageBefore(UserSort sort, User before, int limit) {
+        List<User> page;
+        switch (sort) {
+            case NAME:
+                if (before.getFirstName() == null) {
+                    page = new ArrayList<>(getUsersWithoutNameBefore(before.getId(), limit));
+                } else {
+                    page = new ArrayList<>(getUsersByNameBefore(before.getFirstName(), before.getId(), limit));
+                    if (page.size() < limit) {
+                        page.addAll(getUsersWithoutNameBefore(Integer.MAX_VALUE, limit - page.size()));
+                    }
+                }
+                break;
+            case CREATED_AT_DESC:
+                if (before.getCreatedAt() != null) {
+                    page = new ArrayList<>(getUsersByCreatedAtBefore(before.getCreatedAt().getTime(), before.getId(), limit));
+                } else {
+                    page = new ArrayList<>(getUsersWithoutCreatedAtAfter(before.getId(), limit));
+                    if (page.size() < limit) {
+                        page.addAll(getUsersByCreatedAtBefore(Long.MIN_VALUE, Integer.MIN_VALUE, limit - page.size()));
+                    }
+                }
+                break;
+            case RELEVANCE:
+            case ID:
+            default:
+                page = new ArrayList<>(getUsersByIdBefore(before.getId(), limit));
+                break;
+        }
+        Collections.reverse(page);
+        return page;
+    }
+
+    /**
+     * Returns every row of the full-text index matching a query, with its match statistics.
+     *
+     * @param ftsQuery The FTS4 query, see {@link #searchUserIds(String, int)}.
+     * @return The matches, in no particular order.
+     */
+    @Query("SELECT docid, matchinfo(users_fts, 'pcx') AS match_info FROM users_fts WHERE users_fts MATCH :ftsQuery")
+    List<UserFtsMatch> getFtsMatches(String ftsQuery);
+
+    /**
+     * Returns the IDs of the users whose first name, last name or email match a full-text query,
+     * best matches first. Users are ranked by how often the query's terms occur in their row,
+     * as counted by matchinfo(), and then by ID. FTS4 has no built-in ranking, so every match is
+     * read and ranked here before the limit is applied.
+     *
+     * @param ftsQuery The FTS4 query, for example "jan* smi*" for two prefix terms that must both match.
+     * @param limit    The maximum number of IDs to return.
+     * @return The matching IDs in rank order.
+     */
+    default List<Integer> searchUserIds(String ftsQuery, int limit) {
+        List<UserFtsMatch> matches = getFtsMatches(ftsQuery);
+        int count = matches.size();
+        int[] hits = new int[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            hits[i] = matches.get(i).getHitCount();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> hits[a] != hits[b]
+                ? Integer.compare(hits[b], hits[a])
+                : Integer.compare(matches.get(a).getDocid(), matches.get(b).getDocid()));
+        List<Integer> ids = new ArrayList<>(Math.min(limit, count));
+        for (int i = 0; i < count && i < limit; i++) {
+            ids.add(matches.get(order[i]).getDocid());
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the users matching a full-text query by first name, ignoring case, then by ID.
+     *
+     * @param ftsQuery The FTS4 query, see {@link #searchUserIds(String, int)}.
+     * @param limit    The maximum number of users to return.
+     * @return The matching users in name order.
+     */
+    @Query("SELECT users.* FROM users JOIN users_fts ON users.id = users_fts.docid "
+            + "WHERE users_fts MATCH :ftsQuery ORDER BY users.first_name COLLATE NOCASE, users.id LIMIT :limit")
+    List<User> searchUsersByName(String ftsQuery, int limit);
+
+    /**
+     * Returns the users matching a full-text query by ID.
+     *
+     * @param ftsQuery The FTS4 query, see {@link #searchUserIds(String, int)}.
+     * @param limit    The maximum number of users to return.
+     * @return The matching users in ID order.
+     */
+    @Query("SELECT users.* FROM users JOIN users_fts ON users.id = users_fts.docid "
+            + "WHERE users_fts MATCH :ftsQuery ORDER BY users.id LIMIT :limit")
+    List<User> searchUsersById(String ftsQuery, int limit);
+
+    /**
+     * Returns the users matching a full-text query, newest first. Users without a creation date come last.
+     *
+     * @param ftsQuery The FTS4 query, see {@link #searchUserIds(String, int)}.
+     * @param limit    The maximum number of users to return.
+     * @return The matching users by creation date, then by ID, both descending.
+     */
+    @Query("SELECT users.* FROM users JOIN users_fts ON users.id = users_fts.docid "
+            + "WHERE users_fts MATCH :ftsQuery ORDER BY users.created_at DESC, users.id DESC LIMIT :limit")
+    List<User> searchUsersByCreatedAt(String ftsQuery, int limit);
+
+    /**
+     * Returns the users matching a full-text query in the given order, sorted by SQLite
+     * so the caller never has to sort the results itself.
+     * Unlike the paged list, search results are not read in order from an index: the matches come
+     * from the full-text index in docid order, so SQLite sorts them in a temporary B-tree
+     * (EXPLAIN QUERY PLAN shows "USE TEMP B-TREE FOR ORDER BY" for every order). This is accepted:
+     * the sort only covers the matching rows, never the whole table, and with the limit SQLite
+     * keeps just the best rows while sorting. Walking a sort index and probing the full-text
+     * index for each user instead would read every user for a query that matches few of them.
+     * {@link UserSort#RELEVANCE} ranks the matches with {@link #searchUserIds(String, int)} and
+     * then reads the ranked users by ID, in the same transaction.
+     *
+     * @param ftsQuery The FTS4 query, see {@link #searchUserIds(String, int)}.
+     * @param sort     The order of the results.
+     * @param limit    The maximum number of users to return.
+     * @return The matching users.
+     */
+    @Transaction
+    default List<User> searchUsers(String ftsQuery, UserSort sort, int limit) {
+        switch (sort) {
+            case RELEVANCE:
+                return findUsersInOrder(searchUserIds(ftsQuery, limit));
+            case NAME:
+                return searchUsersByName(ftsQuery, limit);
+            case CREATED_AT_DESC:
+                return searchUsersByCreatedAt(ftsQuery, limit);
+            case ID:
+            default:
+                return searchUsersById(ftsQuery, limit);
+        }
+    }
+
     /**
      * Retrieves a specific user from the database by their ID.
      *
@@ -36,6 +389,95 @@ public interface UserDao {
     @Query("SELECT * FROM users WHERE id = :id")
     User getUserById(int id);
 
+    /**
+     * Retrieves the users with the given IDs.
+     * The list must not hold more than {@link #MAX_QUERY_VARIABLES} IDs; use {@link #findUsersInOrder(List)} otherwise.
+     *
+     * @param ids The IDs of the users to retrieve.
+     * @return The stored users among the IDs, in no particular order.
+     */
+    @Query("SELECT * FROM users WHERE id IN (:ids)")
+    List<User> getUsersByIds(List<Integer> ids);
+
+    /**
+     * Retrieves the users with the given IDs in the order of the IDs, querying in chunks
+     * that stay under the SQLite variable limit. IDs of users that are not stored are skipped.
+     *
+     * @param ids The IDs of the users to retrieve, of any size.
+     * @return The stored users among the IDs, in the order of the IDs.
+     */
+    default List<User> findUsersInOrder(List<Integer> ids) {
+        Map<Integer, User> usersById = new HashMap<>();
+        for (int start = 0; start < ids.size(); start += MAX_QUERY_VARIABLES) {
+            int end = Math.min(start + MAX_QUERY_VARIABLES, ids.size());
+            for (User user : getUsersByIds(ids.subList(start, end))) {
+                usersById.put(user.getId(), user);
+            }
+        }
+        List<User> users = new ArrayList<>(usersById.size());
+        for (Integer id : ids) {
+            User user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Returns which of the given IDs exist in the database.
+     * The list must not hold more than {@link #MAX_QUERY_VARIABLES} IDs; use {@link #findExistingIds(List)} otherwise.
+     *
+     * @param ids The IDs to look up.
+     * @return The subset of ids that belong to stored users.
+     */
+    @Query("SELECT id FROM users WHERE id IN (:ids)")
+    List<Integer> getExistingIds(List<Integer> ids);
+
+    /**
+     * Returns which of the given IDs exist in the database, querying in chunks
+     * that stay under the SQLite variable limit.
+     *
+     * @param ids The IDs to look up, of any size.
+     * @return The set of ids that belong to stored users.
+     */
+    default Set<Integer> findExistingIds(List<Integer> ids) {
+        Set<Integer> existingIds = new HashSet<>();
+        for (int start = 0; start < ids.size(); start += MAX_QUERY_VARIABLES) {
+            int end = Math.min(start + MAX_QUERY_VARIABLES, ids.size());
+            existingIds.addAll(getExistingIds(ids.subList(start, end)));
+        }
+        return existingIds;
+    }
+
+    /**
+     * Returns the ID and content hash of the stored users among the given IDs.
+     * The list must not hold more than {@link #MAX_QUERY_VARIABLES} IDs; use {@link #findContentHashes(List)} otherwise.
+     *
+     * @param ids The IDs to look up.
+     * @return One entry per stored user.
+     */
+    @Query("SELECT id, content_hash FROM users WHERE id IN (:ids)")
+    List<UserContentHash> getContentHashes(List<Integer> ids);
+
+    /**
+     * Returns the content hashes of the stored users among the given IDs, querying in chunks
+     * that stay under the SQLite variable limit.
+     *
+     * @param ids The IDs to look up, of any size.
+     * @return A map from ID to stored content hash; IDs that are not stored are absent.
+     */
+    default Map<Integer, Long> findContentHashes(List<Integer> ids) {
+        Map<Integer, Long> hashes = new HashMap<>();
+        for (int start = 0; start < ids.size(); start += MAX_QUERY_VARIABLES) {
+            int end = Math.min(start + MAX_QUERY_VARIABLES, ids.size());
+            for (UserContentHash row : getContentHashes(ids.subList(start, end))) {
+                hashes.put(row.getId(), row.getContentHash());
+            }
+        }
+        return hashes;
+    }
+
     /**
      * Inserts a new user into the database.
      * If a user with the same ID already exists, it will be replaced.
@@ -46,6 +488,15 @@ public interface UserDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     long insertUser(User user);
 
+    /**
+     * Inserts a list of users with a single prepared statement.
+     * Users whose ID already exists will be replaced.
+     *
+     * @param users The User objects to insert.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<User> users);
+
     /**
      * Updates an existing user in the database.
      *
@@ -54,6 +505,21 @@ public interface UserDao {
     @Update
     void updateUser(User user);
 
+    /**
+     * Overwrites the fields provided by the API for a stored user, together with their content hash.
+     * The creation date is not touched.
+     *
+     * @param id          The ID of the user to update.
+     * @param email       The new email.
+     * @param firstName   The new first name.
+     * @param lastName    The new last name.
+     * @param avatar      The new avatar URL.
+     * @param contentHash The content hash of the new values.
+     */
+    @Query("UPDATE users SET email = :email, first_name = :firstName, last_name = :lastName, "
+            + "avatar = :avatar, content_hash = :contentHash WHERE id = :id")
+    void updateRemoteFields(int id, String email, String firstName, String lastName, String avatar, long contentHash);
+
     /**
      * Deletes a user from the database.
      *
@@ -61,4 +527,56 @@ public interface UserDao {
      */
     @Delete
     void deleteUser(User user);
+
+    /**
+     * Merges users received from the API into the database in a single transaction.
+     * Users whose ID is not stored yet are inserted with the current time as their creation date.
+     * In {@link MergeMode#DIFF} mode, stored users are rewritten only when their content hash differs
+     * from the incoming one; in {@link MergeMode#INSERT_ONLY} mode they are always left untouched.
+     * A user repeated within the list is merged once, from its last copy.
+     *
+     * @param apiUsers Users received from the API.
+     * @param mode     How to treat users that are already stored.
+     * @return The inserted, updated and unchanged counts of the merge, counting each distinct user once.
+     */
+    @Transaction
+    default MergeResult mergeUsers(List<User> apiUsers, MergeMode mode) {
+        Map<Integer, User> lastCopies = new LinkedHashMap<>();
+        for (User apiUser : apiUsers) {
+            // Removing first moves a repeated user to the position of its last copy
+            lastCopies.remove(apiUser.getId());
+            lastCopies.put(apiUser.getId(), apiUser);
+        }
+        List<Integer> ids = new ArrayList<>(lastCopies.keySet());
+        Map<Integer, Long> storedHashes;
+        if (mode == MergeMode.DIFF) {
+            storedHashes = findContentHashes(ids);
+        } else {
+            storedHashes = new HashMap<>();
+            for (Integer id : findExistingIds(ids)) {
+                storedHashes.put(id, 0L);
+            }
+        }
+
+        List<User> newUsers = new ArrayList<>();
+        int updated = 0;
+        long now = System.currentTimeMillis();
+        for (User apiUser : lastCopies.values()) {
+            long hash = apiUser.computeContentHash();
+            Long storedHash = storedHashes.get(apiUser.getId());
+            if (storedHash == null) {
+                apiUser.setCreatedAt(new Date(now));
+                apiUser.setContentHash(hash);
+                newUsers.add(apiUser);
+            } else if (mode == MergeMode.DIFF && storedHash != hash) {
+                updateRemoteFields(apiUser.getId(), apiUser.getEmail(), apiUser.getFirstName(),
+                        apiUser.getLastName(), apiUser.getAvatar(), hash);
+                updated++;
+            }
+        }
+        if (!newUsers.isEmpty()) {
+            insertAll(newUsers);
+        }
+        return new MergeResult(newUsers.size(), updated, lastCopies.size() - newUsers.size() - updated);
+    }
 }
\ No newline at end of file
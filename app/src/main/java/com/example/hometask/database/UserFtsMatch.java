@@ -0,0 +1,56 @@
+package com.example.hometask.database;
+
+import androidx.room.ColumnInfo;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * UserFtsMatch is a row of the users full-text index matched by a query, with the
+ * matchinfo(users_fts, 'pcx') statistics SQLite reports for it. The statistics are an array of
+ * 32-bit integers in the device's byte order: the number of phrases in the query, the number of
+ * columns, and then three values for every phrase and column, the first of which is the number
+ * of times the phrase occurs in that column of this row.
+ */
+public class UserFtsMatch {
+    private final int docid;
+
+    @ColumnInfo(name = "match_info")
+    private final byte[] matchInfo;
+
+    /**
+     * Constructor used by Room when reading the projection.
+     *
+     * @param docid     The ID of the matched user.
+     * @param matchInfo The raw matchinfo(users_fts, 'pcx') blob of the row.
+     */
+    public UserFtsMatch(int docid, byte[] matchInfo) {
+        this.docid = docid;
+        this.matchInfo = matchInfo;
+    }
+
+    public int getDocid() { return docid; }
+
+    public byte[] getMatchInfo() { return matchInfo; }
+
+    /**
+     * @return How many times the query's phrases occur in the row, over all columns.
+     */
+    public int getHitCount() {
+        if (matchInfo == null || matchInfo.length < 8) {
+            return 0;
+        }
+        ByteBuffer info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phrases = info.getInt(0);
+        int columns = info.getInt(4);
+        int hits = 0;
+        for (int i = 0; i < phrases * columns; i++) {
+            int offset = 4 * (2 + 3 * i);
+            if (offset + 4 > matchInfo.length) {
+                break;
+            }
+            hits += info.getInt(offset);
+        }
+        return hits;
+    }
+}
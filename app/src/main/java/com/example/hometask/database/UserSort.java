@@ -0,0 +1,28 @@
+package com.example.hometask.database;
+
+/**
+ * UserSort is the order in which the user list is read from the database.
+ * Every order ends with the user ID, so it is total. Every order but {@link #RELEVANCE} can be paged with a keyset.
+ */
+public enum UserSort {
+    /**
+     * By first name, ignoring case, then by ID.
+     */
+    NAME,
+
+    /**
+     * By ID, ascending.
+     */
+    ID,
+
+    /**
+     * Newest first: by creation date descending, then by ID descending. Users without a creation date come last.
+     */
+    CREATED_AT_DESC,
+
+    /**
+     * Best full-text matches first, then by ID; see {@link UserDao#searchUserIds(String, int)}.
+     * Only search results have a relevance, so the user list itself is read by ID in this order.
+     */
+    RELEVANCE
+}
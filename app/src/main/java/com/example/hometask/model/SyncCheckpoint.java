@@ -0,0 +1,57 @@
+package com.example.hometask.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * SyncCheckpoint records how far an interrupted sync got, so the next sync can resume
+ * after the last page that was committed to the database instead of starting over.
+ */
+@Entity(tableName = "sync_checkpoints")
+public class SyncCheckpoint {
+    @PrimaryKey
+    @NonNull
+    private final String name;
+
+    @ColumnInfo(name = "last_committed_page")
+    private final int lastCommittedPage;
+
+    @ColumnInfo(name = "total_pages")
+    private final int totalPages;
+
+    @ColumnInfo(name = "per_page", defaultValue = "0")
+    private final int perPage;
+
+    @ColumnInfo(name = "updated_at")
+    private final long updatedAt;
+
+    /**
+     * Constructor for creating a SyncCheckpoint.
+     *
+     * @param name              The name of the sync the checkpoint belongs to.
+     * @param lastCommittedPage The last page whose users have been committed.
+     * @param totalPages        The total number of pages of the sync.
+     * @param perPage           The page size the pages were requested with, or 0 for the server's default.
+     * @param updatedAt         When the checkpoint was written, in milliseconds since the epoch.
+     */
+    public SyncCheckpoint(@NonNull String name, int lastCommittedPage, int totalPages, int perPage, long updatedAt) {
+        this.name = name;
+        this.lastCommittedPage = lastCommittedPage;
+        this.totalPages = totalPages;
+        this.perPage = perPage;
+        this.updatedAt = updatedAt;
+    }
+
+    @NonNull
+    public String getName() { return name; }
+
+    public int getLastCommittedPage() { return lastCommittedPage; }
+
+    public int getTotalPages() { return totalPages; }
+
+    public int getPerPage() { return perPage; }
+
+    public long getUpdatedAt() { return updatedAt; }
+}
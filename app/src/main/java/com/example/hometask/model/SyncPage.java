@@ -0,0 +1,51 @@
+package com.example.hometask.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * SyncPage records the HTTP validator (ETag or Last-Modified) of a page whose users have been
+ * merged into the database. A later sync may only skip a page the server reports as not modified
+ * if the validator it carries is the one recorded here, which proves the local rows came from that
+ * exact content. Pages are keyed by page size too, as a page number means nothing without it.
+ */
+@Entity(tableName = "sync_pages", primaryKeys = {"sync_name", "page", "per_page"})
+public class SyncPage {
+    @ColumnInfo(name = "sync_name")
+    @NonNull
+    private final String syncName;
+
+    private final int page;
+
+    @ColumnInfo(name = "per_page")
+    private final int perPage;
+
+    @NonNull
+    private final String validator;
+
+    /**
+     * Constructor for creating a SyncPage.
+     *
+     * @param syncName  The name of the sync the page belongs to.
+     * @param page      The page number.
+     * @param perPage   The page size the page was requested with, or 0 for the server's default.
+     * @param validator The ETag or Last-Modified value of the merged content.
+     */
+    public SyncPage(@NonNull String syncName, int page, int perPage, @NonNull String validator) {
+        this.syncName = syncName;
+        this.page = page;
+        this.perPage = perPage;
+        this.validator = validator;
+    }
+
+    @NonNull
+    public String getSyncName() { return syncName; }
+
+    public int getPage() { return page; }
+
+    public int getPerPage() { return perPage; }
+
+    @NonNull
+    public String getValidator() { return validator; }
+}
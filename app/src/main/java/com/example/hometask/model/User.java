@@ -1,6 +1,7 @@
 package com.example.hometask.model;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.ColumnInfo;
 import androidx.room.TypeConverters;
@@ -14,19 +15,27 @@ import java.util.Objects;
 /**
  * User entity represents a user in the application.
  * It's used both as a Room database entity and as a model for API responses.
+ * The table is indexed for lookups by email, ordering by name and filtering by creation date.
+ * Names are compared without regard to case, so the name indexes serve case-insensitive ordering.
  */
-@Entity(tableName = "users")
+@Entity(tableName = "users",
+        indices = {
+                @Index(value = {"email"}),
+                @Index(value = {"last_name", "first_name"}),
+                @Index(value = {"first_name"}),
+                @Index(value = {"created_at"})
+        })
 public class User implements Serializable {
     @PrimaryKey(autoGenerate = true)
     private int id;
 
     private String email;
 
-    @ColumnInfo(name = "first_name")
+    @ColumnInfo(name = "first_name", collate = ColumnInfo.NOCASE)
     @SerializedName("first_name")
     private String firstName;
 
-    @ColumnInfo(name = "last_name")
+    @ColumnInfo(name = "last_name", collate = ColumnInfo.NOCASE)
     @SerializedName("last_name")
     private String lastName;
 
@@ -36,6 +45,14 @@ public class User implements Serializable {
     @TypeConverters(Converters.class)
     private Date createdAt;
 
+    /**
+     * Hash of the remote content (email, names and avatar) last merged into this row.
+     * A sync compares it with the hash of the incoming user to skip rows that did not change.
+     * It is 0 for users that never came from the API.
+     */
+    @ColumnInfo(name = "content_hash", defaultValue = "0")
+    private long contentHash;
+
     /**
      * Constructor for creating a new User.
      *
@@ -71,6 +88,43 @@ public class User implements Serializable {
     public Date getCreatedAt() { return createdAt; }
     public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
 
+    public long getContentHash() { return contentHash; }
+    public void setContentHash(long contentHash) { this.contentHash = contentHash; }
+
+    /**
+     * Computes a 64-bit FNV-1a hash over the fields the API provides.
+     * Two users with the same email, names and avatar always produce the same hash.
+     *
+     * @return The content hash of this user.
+     */
+    public long computeContentHash() {
+        long hash = 0xcbf29ce484222325L;
+        hash = hashField(hash, email);
+        hash = hashField(hash, firstName);
+        hash = hashField(hash, lastName);
+        hash = hashField(hash, avatar);
+        return hash;
+    }
+
+    /**
+     * Mixes one field into a running FNV-1a hash. A null field and an empty field hash differently,
+     * and every field is terminated so that moving characters between fields changes the hash.
+     *
+     * @param hash  The hash so far.
+     * @param value The field value, can be null.
+     * @return The updated hash.
+     */
+    private static long hashField(long hash, String value) {
+        final long prime = 0x100000001b3L;
+        if (value == null) {
+            return (hash ^ 0xff) * prime;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * prime;
+        }
+        return (hash ^ 0xfe) * prime;
+    }
+
     /**
      * Checks if this User is equal to another object.
      * Users are considered equal if they have the same id.
@@ -0,0 +1,31 @@
+package com.example.hometask.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+
+/**
+ * UserFts is the full-text index over the names and email of the users table.
+ * It is an external-content FTS4 table: it stores only the index, reads the text from the users
+ * table, and Room keeps it in sync with triggers on users. Its docid is the user's id.
+ */
+@Fts4(contentEntity = User.class)
+@Entity(tableName = "users_fts")
+public class UserFts {
+    @ColumnInfo(name = "first_name")
+    private String firstName;
+
+    @ColumnInfo(name = "last_name")
+    private String lastName;
+
+    private String email;
+
+    public String getFirstName() { return firstName; }
+    public void setFirstName(String firstName) { this.firstName = firstName; }
+
+    public String getLastName() { return lastName; }
+    public void setLastName(String lastName) { this.lastName = lastName; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+}
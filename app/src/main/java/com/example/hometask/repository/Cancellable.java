@@ -0,0 +1,19 @@
+package com.example.hometask.repository;
+
+/**
+ * Cancellable is a handle to a running repository operation.
+ * Cancelling stops the operation's network calls and removes its database work that has not started yet.
+ * The operation's callback is never invoked after cancel() returns.
+ */
+public interface Cancellable {
+
+    /**
+     * Cancels the operation. Has no effect if the operation has already finished or been cancelled.
+     */
+    void cancel();
+
+    /**
+     * @return true if {@link #cancel()} has been called.
+     */
+    boolean isCancelled();
+}
@@ -0,0 +1,101 @@
+package com.example.hometask.repository;
+
+import com.example.hometask.repository.UserRepository.RepositoryCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * CancellableOperation is the repository's implementation of {@link Cancellable}.
+ * The parts of an operation register what has to happen when it is cancelled, such as cancelling
+ * a Retrofit call or a queued database task; all of it runs once, on the thread calling cancel().
+ * Callbacks wrapped with {@link #guard(RepositoryCallback)} are silenced by the cancellation.
+ */
+final class CancellableOperation implements Cancellable {
+
+    // All fields below are guarded by this
+    private List<Runnable> cancelActions = new ArrayList<>();
+    private boolean cancelled;
+
+    @Override
+    public void cancel() {
+        List<Runnable> actions;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            actions = cancelActions;
+            cancelActions = null;
+        }
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers an action to run when the operation is cancelled.
+     * If it already has been, the action runs right away on the calling thread.
+     * @param action The action, for example cancelling a network call.
+     */
+    void onCancel(Runnable action) {
+        synchronized (this) {
+            if (!cancelled) {
+                cancelActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * Removes an action registered with {@link #onCancel(Runnable)}, once the work it would stop
+     * has finished. Long operations that register an action per network call must remove each one,
+     * or the list of actions grows with every call.
+     * @param action The very action instance that was registered.
+     */
+    synchronized void removeOnCancel(Runnable action) {
+        if (!cancelled) {
+            cancelActions.remove(action);
+        }
+    }
+
+    /**
+     * Throws if the operation has been cancelled, for long-running work to check between steps.
+     * @throws CancellationException If the operation has been cancelled.
+     */
+    void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Operation cancelled");
+        }
+    }
+
+    /**
+     * Wraps a callback so that nothing is delivered to it once the operation is cancelled.
+     * @param callback The callback of the caller.
+     * @return The guarded callback.
+     */
+    <T> RepositoryCallback<T> guard(RepositoryCallback<T> callback) {
+        return new RepositoryCallback<>() {
+            @Override
+            public void onSuccess(T result) {
+                if (!isCancelled()) {
+                    callback.onSuccess(result);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (!isCancelled()) {
+                    callback.onError(e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.hometask.repository;
+
+import android.os.SystemClock;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * CircuitBreaker stops calls to a remote service that keeps failing.
+ * While closed, calls pass and consecutive failures are counted. Once the count reaches the threshold
+ * the breaker opens and calls fail immediately for the cool-down period. After the cool-down a single
+ * probe call is let through (half-open): its success closes the breaker, its failure opens it again.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of the breaker.
+     */
+    public enum State {
+        /** Calls pass; failures are being counted. */
+        CLOSED,
+        /** Calls fail immediately until the cool-down has passed. */
+        OPEN,
+        /** A single probe call is in flight to find out whether the service has recovered. */
+        HALF_OPEN
+    }
+
+    /**
+     * Listener notified when the breaker changes state. Called on the thread that reported the
+     * outcome causing the change.
+     */
+    public interface Listener {
+        void onStateChanged(State state);
+    }
+
+    private final int failureThreshold;
+    private final long coolDownMillis;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // All fields below are guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    /**
+     * Constructor for CircuitBreaker.
+     * @param failureThreshold The number of consecutive failures that opens the breaker, at least 1.
+     * @param coolDownMillis How long the breaker stays open before a probe call is let through.
+     */
+    public CircuitBreaker(int failureThreshold, long coolDownMillis) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        this.failureThreshold = failureThreshold;
+        this.coolDownMillis = coolDownMillis;
+    }
+
+    /**
+     * Asks for permission to make a call. Every permitted call must be followed by exactly one
+     * call to {@link #recordSuccess()}, {@link #recordFailure()} or {@link #recordCancelled()}.
+     * @return true if the call may be made, false if it must fail immediately.
+     */
+    public boolean tryAcquire() {
+        synchronized (this) {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (SystemClock.elapsedRealtime() - openedAt < coolDownMillis) {
+                        return false;
+                    }
+                    state = State.HALF_OPEN;
+                    break;
+                default:
+                    // The probe is already in flight
+                    return false;
+            }
+        }
+        notifyListeners(State.HALF_OPEN);
+        return true;
+    }
+
+    /**
+     * Records a call that reached the service.
+     */
+    public void recordSuccess() {
+        boolean changed;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            changed = state != State.CLOSED;
+            state = State.CLOSED;
+        }
+        if (changed) {
+            notifyListeners(State.CLOSED);
+        }
+    }
+
+    /**
+     * Records a call that failed because the service was unreachable or unhealthy.
+     */
+    public void recordFailure() {
+        boolean opened = false;
+        synchronized (this) {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                state = State.OPEN;
+                openedAt = SystemClock.elapsedRealtime();
+                opened = true;
+            }
+        }
+        if (opened) {
+            notifyListeners(State.OPEN);
+        }
+    }
+
+    /**
+     * Records a permitted call that was cancelled before it told anything about the service.
+     * A cancelled probe leaves the breaker open, but the next call may probe again right away.
+     */
+    public void recordCancelled() {
+        boolean reopened = false;
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                state = State.OPEN;
+                openedAt = SystemClock.elapsedRealtime() - coolDownMillis;
+                reopened = true;
+            }
+        }
+        if (reopened) {
+            notifyListeners(State.OPEN);
+        }
+    }
+
+    /**
+     * @return The current state.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return The time until an open breaker lets a probe through, or 0 if calls may be made now.
+     */
+    public synchronized long getRemainingCoolDownMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(openedAt + coolDownMillis - SystemClock.elapsedRealtime(), 0);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners(State state) {
+        for (Listener listener : listeners) {
+            listener.onStateChanged(state);
+        }
+    }
+}
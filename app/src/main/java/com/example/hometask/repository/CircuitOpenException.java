@@ -0,0 +1,20 @@
+package com.example.hometask.repository;
+
+/**
+ * CircuitOpenException signals that a call to the API was not made because the circuit breaker
+ * is open after repeated failures. It is raised immediately, without any network activity.
+ */
+public class CircuitOpenException extends Exception {
+    private final long retryAfterMillis;
+
+    /**
+     * Constructor for CircuitOpenException.
+     * @param retryAfterMillis The time until the breaker lets a probe call through.
+     */
+    public CircuitOpenException(long retryAfterMillis) {
+        super("API temporarily unavailable, retry in " + Math.max(retryAfterMillis / 1000, 1) + " s");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() { return retryAfterMillis; }
+}
@@ -0,0 +1,176 @@
+package com.example.hometask.repository;
+
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+
+import com.example.hometask.api.Histogram;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * InstrumentedExecutor is a fixed-size thread pool whose threads are named after the pool and run at
+ * background priority, so they are recognizable in thread dumps and never compete with the UI thread.
+ * It records how long tasks wait in the queue and how long they run, counts completed and failed
+ * tasks, and tracks the deepest the queue has been.
+ */
+public final class InstrumentedExecutor extends ThreadPoolExecutor {
+
+    /**
+     * How long an idle thread is kept before it exits. A pool with nothing to do holds no threads,
+     * and threads are started again as work arrives, so a pool never needs to be shut down.
+     */
+    static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final String name;
+    private final Histogram queueWaitMillis = new Histogram();
+    private final Histogram runMillis = new Histogram();
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicLong failedTasks = new AtomicLong();
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+    private final ThreadLocal<Long> runStartedAt = new ThreadLocal<>();
+
+    /**
+     * Constructor for InstrumentedExecutor.
+     *
+     * @param name    The name of the pool, used as prefix of its thread names.
+     * @param threads The number of threads, at least 1.
+     */
+    InstrumentedExecutor(String name, int threads) {
+        super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory(name));
+        this.name = name;
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        super.execute(new TimedTask(command));
+        int depth = getQueue().size();
+        int peak;
+        while (depth > (peak = peakQueueDepth.get()) && !peakQueueDepth.compareAndSet(peak, depth)) {
+            // Retry until this depth is stored or a deeper one has been recorded
+        }
+    }
+
+    /**
+     * Removes cancelled tasks from the queue. Cancelled {@link java.util.concurrent.Future} tasks
+     * would not run anyway, but they would hold their queue slot and everything they reference.
+     */
+    @Override
+    public void purge() {
+        for (Runnable queued : getQueue().toArray(new Runnable[0])) {
+            if (queued instanceof TimedTask && ((TimedTask) queued).isCancelled()) {
+                remove(queued);
+            }
+        }
+        super.purge();
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+        long now = System.nanoTime();
+        if (r instanceof TimedTask) {
+            queueWaitMillis.record(TimeUnit.NANOSECONDS.toMillis(now - ((TimedTask) r).enqueuedAt));
+        }
+        runStartedAt.set(now);
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        Long startedAt = runStartedAt.get();
+        if (startedAt != null) {
+            runMillis.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            runStartedAt.remove();
+        }
+        if (t != null) {
+            failedTasks.incrementAndGet();
+        } else {
+            completedTasks.incrementAndGet();
+        }
+    }
+
+    public String getName() { return name; }
+
+    /**
+     * @return The time tasks spent in the queue before a thread picked them up, in milliseconds.
+     */
+    public Histogram getQueueWaitMillis() { return queueWaitMillis; }
+
+    /**
+     * @return The time tasks took to run, in milliseconds.
+     */
+    public Histogram getRunMillis() { return runMillis; }
+
+    /**
+     * @return The number of tasks that finished normally.
+     */
+    public long getCompletedTasks() { return completedTasks.get(); }
+
+    /**
+     * @return The number of tasks that ended with an uncaught exception.
+     */
+    public long getFailedTasks() { return failedTasks.get(); }
+
+    /**
+     * @return The largest number of tasks that have been waiting in the queue at once.
+     */
+    public int getPeakQueueDepth() { return peakQueueDepth.get(); }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "InstrumentedExecutor{name=" + name + ", threads=" + getPoolSize() + ", active=" + getActiveCount()
+                + ", queued=" + getQueue().size() + ", peakQueued=" + getPeakQueueDepth()
+                + ", completed=" + getCompletedTasks() + ", failed=" + getFailedTasks()
+                + ", queueWait=" + queueWaitMillis + ", run=" + runMillis + "}";
+    }
+
+    /**
+     * A task together with the time it was submitted.
+     */
+    private static final class TimedTask implements Runnable {
+        final Runnable task;
+        final long enqueuedAt = System.nanoTime();
+
+        TimedTask(Runnable task) {
+            this.task = task;
+        }
+
+        boolean isCancelled() {
+            return task instanceof Future && ((Future<?>) task).isCancelled();
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    /**
+     * Creates background-priority threads named "name-1", "name-2" and so on.
+     */
+    static final class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger nextId = new AtomicInteger(1);
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            return new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, name + "-" + nextId.getAndIncrement());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.hometask.repository;
+
+import com.example.hometask.repository.UserRepository.RepositoryCallback;
+
+/**
+ * PageFanOut fetches a range of pages with a bounded number of requests in flight and hands
+ * the pages to a consumer strictly in page order, one at a time: page N+1 is only consumed
+ * after the consumer has finished with page N. Pages that arrive early are held until their turn.
+ * Fetching runs ahead of consumption by at most a fixed number of pages, so a slow consumer
+ * holds back new requests instead of letting downloaded pages pile up in memory.
+ * The first failure, from a fetch or from the consumer, fails the whole fan-out and stops
+ * further requests.
+ */
+class PageFanOut {
+
+    /**
+     * Fetches a single page.
+     */
+    interface PageSource {
+        void fetch(int page, RepositoryCallback<UserPage> callback);
+    }
+
+    /**
+     * Receives pages in order. Must call done exactly once, possibly from another thread.
+     */
+    interface PageConsumer {
+        void consume(UserPage page, RepositoryCallback<Void> done);
+    }
+
+    private final int firstPage;
+    private final int totalPages;
+    private final int concurrency;
+    private final int prefetchDepth;
+    private final PageSource source;
+    private final PageConsumer consumer;
+    private final RepositoryCallback<Void> callback;
+
+    // All fields below are guarded by this
+    private final UserPage[] fetchedPages;
+    private int nextPageToFetch;
+    private int nextPageToConsume;
+    private int fetchesInFlight;
+    private boolean consuming;
+    private boolean draining;
+    private boolean drainRequested;
+    private boolean finished;
+
+    /**
+     * Constructor for PageFanOut.
+     * @param firstPage The first page to fetch and consume.
+     * @param totalPages The last page to fetch and consume.
+     * @param concurrency The maximum number of fetches in flight.
+     * @param prefetchDepth The maximum number of pages fetched or in flight ahead of the page being consumed,
+     *                      counting that page.
+     * @param source Fetches individual pages.
+     * @param consumer Receives the pages in order.
+     * @param callback Called once every page has been consumed, or on the first failure.
+     */
+    PageFanOut(int firstPage, int totalPages, int concurrency, int prefetchDepth, PageSource source,
+               PageConsumer consumer, RepositoryCallback<Void> callback) {
+        this.firstPage = firstPage;
+        this.totalPages = totalPages;
+        this.concurrency = Math.max(concurrency, 1);
+        this.prefetchDepth = Math.max(prefetchDepth, 1);
+        this.source = source;
+        this.consumer = consumer;
+        this.callback = callback;
+        this.fetchedPages = new UserPage[Math.max(totalPages - firstPage + 1, 0)];
+        this.nextPageToFetch = firstPage;
+        this.nextPageToConsume = firstPage;
+    }
+
+    /**
+     * Starts fetching.
+     * @param prefetched A page that has already been fetched, typically the first one, or null.
+     */
+    void start(UserPage prefetched) {
+        synchronized (this) {
+            if (prefetched != null && prefetched.getPage() == firstPage && fetchedPages.length > 0) {
+                fetchedPages[0] = prefetched;
+                nextPageToFetch++;
+            }
+        }
+        drain();
+        launchFetches();
+    }
+
+    /**
+     * Starts as many fetches as the concurrency limit and the prefetch window allow.
+     */
+    private void launchFetches() {
+        while (true) {
+            final int page;
+            synchronized (this) {
+                if (finished || nextPageToFetch > totalPages || fetchesInFlight >= concurrency
+                        || nextPageToFetch - nextPageToConsume >= prefetchDepth) {
+                    return;
+                }
+                page = nextPageToFetch++;
+                fetchesInFlight++;
+            }
+            source.fetch(page, new RepositoryCallback<>() {
+                @Override
+                public void onSuccess(UserPage userPage) {
+                    synchronized (PageFanOut.this) {
+                        fetchesInFlight--;
+                        fetchedPages[page - firstPage] = userPage;
+                    }
+                    drain();
+                    launchFetches();
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    fail(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Hands the next page to the consumer if it has arrived and the consumer is idle.
+     * Only one thread drains at a time; a drain requested meanwhile is picked up by the active loop,
+     * so a consumer completing synchronously does not recurse.
+     */
+    private void drain() {
+        synchronized (this) {
+            if (draining) {
+                drainRequested = true;
+                return;
+            }
+            draining = true;
+        }
+        boolean complete = false;
+        while (true) {
+            UserPage page = null;
+            synchronized (this) {
+                drainRequested = false;
+                if (!finished && !consuming) {
+                    if (nextPageToConsume > totalPages) {
+                        finished = true;
+                        complete = true;
+                    } else if (fetchedPages[nextPageToConsume - firstPage] != null) {
+                        page = fetchedPages[nextPageToConsume - firstPage];
+                        fetchedPages[nextPageToConsume - firstPage] = null;
+                        consuming = true;
+                    }
+                }
+                if (page == null && (complete || !drainRequested)) {
+                    draining = false;
+                    break;
+                }
+            }
+            if (page != null) {
+                consumer.consume(page, new RepositoryCallback<>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        synchronized (PageFanOut.this) {
+                            consuming = false;
+                            nextPageToConsume++;
+                        }
+                        drain();
+                        launchFetches();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        fail(e);
+                    }
+                });
+            }
+        }
+        if (complete) {
+            callback.onSuccess(null);
+        }
+    }
+
+    /**
+     * Fails the fan-out once; later failures and results are ignored.
+     * @param e The error to report.
+     */
+    private void fail(Exception e) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+        }
+        callback.onError(e);
+    }
+}
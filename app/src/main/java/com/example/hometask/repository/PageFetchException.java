@@ -0,0 +1,46 @@
+package com.example.hometask.repository;
+
+/**
+ * PageFetchException signals that a page of users could not be fetched from the API.
+ * It tells transient failures, which are worth retrying, from permanent ones.
+ */
+public class PageFetchException extends Exception {
+    private final int page;
+    private final int httpCode;
+
+    /**
+     * Constructor for a failure where the server answered with an unusable response.
+     * @param page The page that was requested.
+     * @param httpCode The HTTP status code of the response.
+     */
+    public PageFetchException(int page, int httpCode) {
+        super("API call unsuccessful for page " + page + " (HTTP " + httpCode + ")");
+        this.page = page;
+        this.httpCode = httpCode;
+    }
+
+    /**
+     * Constructor for a failure where no response was received.
+     * @param page The page that was requested.
+     * @param cause The underlying network error.
+     */
+    public PageFetchException(int page, Throwable cause) {
+        super("API call failed for page " + page, cause);
+        this.page = page;
+        this.httpCode = 0;
+    }
+
+    public int getPage() { return page; }
+
+    /**
+     * @return The HTTP status code, or 0 if no response was received.
+     */
+    public int getHttpCode() { return httpCode; }
+
+    /**
+     * @return true for network errors, timeouts, rate limiting and server errors.
+     */
+    public boolean isRetryable() {
+        return httpCode == 0 || httpCode == 408 || httpCode == 429 || httpCode >= 500;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.hometask.repository;
+
+/**
+ * PageSizeController picks the number of users to request per page from the latency and
+ * payload size of earlier pages, aiming at a target response time per request.
+ * Per-user time and size are tracked as moving averages over recent pages; the next page size is
+ * the number of users that fits both the target time and the payload limit. Since the averages
+ * include the fixed round-trip overhead, the size grows over successive syncs on slow links until
+ * a request takes about the target time, and never changes by more than a factor of two at once.
+ * A sync must use one page size throughout, so the size is read once when a sync starts.
+ */
+class PageSizeController {
+
+    /**
+     * Smallest page size ever requested; the default page size of the API.
+     */
+    static final int MIN_PAGE_SIZE = 6;
+
+    /**
+     * Largest page size ever requested.
+     */
+    static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Default response time to aim for.
+     */
+    static final long DEFAULT_TARGET_MILLIS = 1000;
+
+    /**
+     * Default limit on the body size of a single page.
+     */
+    static final long DEFAULT_MAX_PAGE_BYTES = 256 * 1024;
+
+    /**
+     * Weight of the newest observation in the moving averages.
+     */
+    private static final double SMOOTHING = 0.3;
+
+    // All fields below are guarded by this
+    private long targetMillis = DEFAULT_TARGET_MILLIS;
+    private long maxPageBytes = DEFAULT_MAX_PAGE_BYTES;
+    private double millisPerUser = -1;
+    private double bytesPerUser = -1;
+    private int pageSize = 0;
+
+    /**
+     * Records how long a page took to download and how large it was.
+     * Pages answered from the cache should not be recorded, as their latency says nothing about the link.
+     * @param users The number of users on the page.
+     * @param elapsedMillis The time from sending the request to receiving the parsed response.
+     * @param bytes The size of the response body on the wire, or -1 if unknown.
+     */
+    synchronized void record(int users, long elapsedMillis, long bytes) {
+        if (users <= 0 || elapsedMillis < 0) {
+            return;
+        }
+        millisPerUser = smooth(millisPerUser, (double) elapsedMillis / users);
+        if (bytes > 0) {
+            bytesPerUser = smooth(bytesPerUser, (double) bytes / users);
+        }
+        if (pageSize == 0) {
+            // Until now the server default was used; continue from the size actually observed
+            pageSize = Math.max(users, MIN_PAGE_SIZE);
+        }
+        int byTime = (int) Math.min(MAX_PAGE_SIZE, targetMillis / Math.max(millisPerUser, 1e-3));
+        int byBytes = bytesPerUser > 0 ? (int) Math.min(MAX_PAGE_SIZE, maxPageBytes / bytesPerUser) : MAX_PAGE_SIZE;
+        int wanted = Math.min(byTime, byBytes);
+        wanted = Math.max(wanted, pageSize / 2);
+        wanted = Math.min(wanted, pageSize * 2);
+        pageSize = clamp(wanted);
+    }
+
+    /**
+     * @return The page size to request, or 0 to use the server's default until pages have been observed.
+     */
+    synchronized int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the response time to aim for.
+     * @param targetMillis The target time per request in milliseconds, at least 1.
+     */
+    synchronized void setTargetMillis(long targetMillis) {
+        if (targetMillis < 1) {
+            throw new IllegalArgumentException("targetMillis must be at least 1");
+        }
+        this.targetMillis = targetMillis;
+    }
+
+    /**
+     * Sets the largest body size a page may have.
+     * @param maxPageBytes The limit in bytes, at least 1.
+     */
+    synchronized void setMaxPageBytes(long maxPageBytes) {
+        if (maxPageBytes < 1) {
+            throw new IllegalArgumentException("maxPageBytes must be at least 1");
+        }
+        this.maxPageBytes = maxPageBytes;
+    }
+
+    private static double smooth(double average, double sample) {
+        return average < 0 ? sample : average + SMOOTHING * (sample - average);
+    }
+
+    private static int clamp(int pageSize) {
+        return Math.max(MIN_PAGE_SIZE, Math.min(MAX_PAGE_SIZE, pageSize));
+    }
+}
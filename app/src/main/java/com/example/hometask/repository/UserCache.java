@@ -0,0 +1,209 @@
+package com.example.hometask.repository;
+
+import androidx.annotation.NonNull;
+
+import com.example.hometask.model.User;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UserCache keeps recently used users in memory, keyed by ID, within a memory budget.
+ * The repository writes through it: every add, update and delete it commits to the database is applied
+ * here as well, and users touched by a sync merge are dropped, so the cache never serves a stale row.
+ * When the budget is exceeded the least recently used users are evicted.
+ * Users are copied on the way in and out, so callers editing a returned user cannot change the cache.
+ * Sizes are estimates: a fixed overhead per user plus two bytes per character of its strings.
+ */
+public final class UserCache {
+
+    /**
+     * Estimated memory taken by a cached user apart from its strings: the User and Date objects,
+     * the string headers and the map node.
+     */
+    static final long USER_OVERHEAD_BYTES = 256;
+
+    // All fields below are guarded by this
+    private final LinkedHashMap<Integer, User> byRecency = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxBytes;
+    private long sizeBytes;
+    private long writeStamp;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Constructor for UserCache.
+     * @param maxBytes The memory budget in bytes, at least 1.
+     */
+    UserCache(long maxBytes) {
+        setMaxBytes(maxBytes);
+    }
+
+    /**
+     * Returns a cached user.
+     * @param id The ID of the user.
+     * @return A copy of the user, or null if it is not cached.
+     */
+    synchronized User get(int id) {
+        User user = byRecency.get(id);
+        if (user == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return copyOf(user);
+    }
+
+    /**
+     * Returns the current write stamp. A reader takes it before querying the database and passes it to
+     * {@link #putIfUnchanged(long, User)}, which ignores the row if a write happened in between.
+     * @return The write stamp.
+     */
+    synchronized long stamp() {
+        return writeStamp;
+    }
+
+    /**
+     * Caches a user read from the database, unless the cache has been written to since the read began.
+     * @param stamp The write stamp taken before the read.
+     * @param user The user read.
+     */
+    synchronized void putIfUnchanged(long stamp, User user) {
+        if (stamp == writeStamp) {
+            store(user);
+        }
+    }
+
+    /**
+     * Writes through a user that has been inserted or updated in the database.
+     * @param user The user as stored, with its ID.
+     */
+    synchronized void put(User user) {
+        writeStamp++;
+        store(user);
+    }
+
+    /**
+     * Writes through a user that has been deleted from the database.
+     * @param id The ID of the deleted user.
+     */
+    synchronized void remove(int id) {
+        writeStamp++;
+        drop(id);
+    }
+
+    /**
+     * Forgets users whose rows have been rewritten in a way the cache cannot reproduce, such as a sync merge.
+     * @param users The users that were written.
+     */
+    synchronized void invalidate(List<User> users) {
+        writeStamp++;
+        for (User user : users) {
+            drop(user.getId());
+        }
+    }
+
+    /**
+     * Forgets every user.
+     */
+    synchronized void clear() {
+        writeStamp++;
+        byRecency.clear();
+        sizeBytes = 0;
+    }
+
+    /**
+     * Sets the memory budget, evicting the least recently used users if the cache is over it.
+     * @param maxBytes The budget in bytes, at least 1.
+     */
+    synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be at least 1");
+        }
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    public synchronized long getMaxBytes() { return maxBytes; }
+
+    /**
+     * @return The estimated memory taken by the cached users.
+     */
+    public synchronized long getSizeBytes() { return sizeBytes; }
+
+    public synchronized int getUserCount() { return byRecency.size(); }
+
+    /**
+     * @return The number of lookups answered from memory.
+     */
+    public synchronized long getHitCount() { return hitCount; }
+
+    /**
+     * @return The number of lookups that had to go to the database.
+     */
+    public synchronized long getMissCount() { return missCount; }
+
+    /**
+     * @return The number of users evicted to stay within the budget.
+     */
+    public synchronized long getEvictionCount() { return evictionCount; }
+
+    private void store(User user) {
+        drop(user.getId());
+        User copy = copyOf(user);
+        byRecency.put(copy.getId(), copy);
+        sizeBytes += estimateBytes(copy);
+        trim();
+    }
+
+    private void drop(int id) {
+        User removed = byRecency.remove(id);
+        if (removed != null) {
+            sizeBytes -= estimateBytes(removed);
+        }
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<Integer, User>> eldest = byRecency.entrySet().iterator();
+        while (sizeBytes > maxBytes && eldest.hasNext()) {
+            User evicted = eldest.next().getValue();
+            eldest.remove();
+            sizeBytes -= estimateBytes(evicted);
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Copies a user, including the fields that are not set through the constructor.
+     * @param user The user to copy.
+     * @return The copy.
+     */
+    static User copyOf(User user) {
+        User copy = new User(user.getEmail(), user.getFirstName(), user.getLastName(), user.getAvatar());
+        copy.setId(user.getId());
+        copy.setCreatedAt(user.getCreatedAt() != null ? new Date(user.getCreatedAt().getTime()) : null);
+        copy.setContentHash(user.getContentHash());
+        return copy;
+    }
+
+    private static long estimateBytes(User user) {
+        return USER_OVERHEAD_BYTES + 2L * (length(user.getEmail()) + length(user.getFirstName())
+                + length(user.getLastName()) + length(user.getAvatar()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return "UserCache{users=" + byRecency.size() + ", sizeBytes=" + sizeBytes + ", maxBytes=" + maxBytes
+                + ", hits=" + hitCount + ", misses=" + missCount
+                + ", evictions=" + evictionCount + "}";
+    }
+}
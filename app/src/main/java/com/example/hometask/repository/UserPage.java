@@ -0,0 +1,47 @@
+package com.example.hometask.repository;
+
+import com.example.hometask.model.User;
+
+import java.util.List;
+
+/**
+ * UserPage is one page of users fetched from the API, together with the pagination
+ * metadata, its HTTP validator and whether the HTTP cache reported it as not modified.
+ */
+class UserPage {
+    private final int page;
+    private final int totalPages;
+    private final List<User> users;
+    private final boolean notModified;
+    private final String validator;
+
+    /**
+     * Constructor for UserPage.
+     * @param page The page number.
+     * @param totalPages The total number of pages reported by the API.
+     * @param users The users on the page.
+     * @param notModified true if the page was answered from the HTTP cache or with 304 Not Modified.
+     * @param validator The ETag or Last-Modified value of the page, or null if it has none.
+     */
+    UserPage(int page, int totalPages, List<User> users, boolean notModified, String validator) {
+        this.page = page;
+        this.totalPages = totalPages;
+        this.users = users;
+        this.notModified = notModified;
+        this.validator = validator;
+    }
+
+    int getPage() { return page; }
+
+    int getTotalPages() { return totalPages; }
+
+    List<User> getUsers() { return users; }
+
+    /**
+     * @return true if the HTTP cache held the same content. This only says the body matches the
+     *         cached response, not that it has been merged; see SyncCheckpointDao.isPageMerged.
+     */
+    boolean isNotModified() { return notModified; }
+
+    String getValidator() { return validator; }
+}
@@ -0,0 +1,132 @@
+package com.example.hometask.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+import androidx.room.InvalidationTracker;
+
+import com.example.hometask.database.AppDatabase;
+import com.example.hometask.database.UserDao;
+import com.example.hometask.database.UserSort;
+import com.example.hometask.model.User;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import kotlin.Unit;
+
+/**
+ * UserPagingSource loads the user list page by page with keyset queries, so only the rows near
+ * the viewport are held in memory and any page costs the same regardless of table size.
+ * A page is keyed by a neighbouring user: the last user of the previous page when appending,
+ * and the first user of the following page when prepending, so pages dropped from memory can be
+ * loaded again in both directions. A refresh starts near the last viewed position instead of at the top.
+ * Any write to the users table invalidates the source.
+ */
+class UserPagingSource extends ListenableFuturePagingSource<User, User> {
+    private final AppDatabase database;
+    private final UserDao userDao;
+    private final UserSort sort;
+    private final Executor executor;
+    private final InvalidationTracker.Observer observer;
+    private final AtomicBoolean observerRegistered = new AtomicBoolean();
+
+    /**
+     * Constructor for UserPagingSource. The source is created on the main thread, so the database
+     * is only observed from the first load on, which runs on the executor.
+     * @param database The database, observed for changes to the users table.
+     * @param sort The order of the list.
+     * @param executor The executor running the queries.
+     */
+    UserPagingSource(AppDatabase database, UserSort sort, Executor executor) {
+        this.database = database;
+        this.userDao = database.userDao();
+        this.sort = sort;
+        this.executor = executor;
+        this.observer = new InvalidationTracker.Observer("users") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        registerInvalidatedCallback(() -> {
+            database.getInvalidationTracker().removeObserver(observer);
+            return Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<User, User>> loadFuture(@NonNull LoadParams<User> params) {
+        ListenableFutureTask<LoadResult<User, User>> task = ListenableFutureTask.create(() -> {
+            try {
+                registerObserver();
+                return loadPage(params);
+            } catch (Exception e) {
+                return new LoadResult.Error<>(e);
+            }
+        });
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Starts observing the users table, once. Registering is done before the first query, so every write
+     * after the data was read invalidates the source. If the source was invalidated in the meantime,
+     * its callback may already have run, so the observer is removed again.
+     */
+    private void registerObserver() {
+        if (observerRegistered.compareAndSet(false, true)) {
+            database.getInvalidationTracker().addObserver(observer);
+            if (getInvalid()) {
+                database.getInvalidationTracker().removeObserver(observer);
+            }
+        }
+    }
+
+    /**
+     * Loads the page for the given parameters.
+     * @param params The load parameters.
+     * @return The page with the keys of its neighbours, null where the list ends.
+     */
+    private LoadResult<User, User> loadPage(LoadParams<User> params) {
+        final User key = params.getKey();
+        final int limit = params.getLoadSize();
+        if (params instanceof LoadParams.Prepend) {
+            List<User> users = userDao.getUsersPageBefore(sort, key, limit);
+            User prevKey = users.size() < limit ? null : users.get(0);
+            User nextKey = users.isEmpty() ? null : users.get(users.size() - 1);
+            return new LoadResult.Page<>(users, prevKey, nextKey);
+        }
+
+        User after = key;
+        if (params instanceof LoadParams.Refresh && key != null) {
+            // A refresh key is the first user to show, so the page starts right after the user before it
+            List<User> previous = userDao.getUsersPageBefore(sort, key, 1);
+            after = previous.isEmpty() ? null : previous.get(0);
+        }
+        List<User> users = userDao.getUsersPage(sort, after, limit);
+        User prevKey = after == null || users.isEmpty() ? null : users.get(0);
+        User nextKey = users.size() < limit ? null : users.get(users.size() - 1);
+        return new LoadResult.Page<>(users, prevKey, nextKey);
+    }
+
+    /**
+     * Returns the user half a page above the position last viewed, so the refreshed page is loaded
+     * around it and the list stays where it was after a write to the users table.
+     */
+    @Nullable
+    @Override
+    public User getRefreshKey(@NonNull PagingState<User, User> state) {
+        Integer anchorPosition = state.getAnchorPosition();
+        if (anchorPosition == null) {
+            return null;
+        }
+        return state.closestItemToPosition(Math.max(0, anchorPosition - state.getConfig().initialLoadSize / 2));
+    }
+}
@@ -1,18 +1,42 @@
 package com.example.hometask.repository;
 
 import android.content.Context;
+import android.os.SystemClock;
 import androidx.annotation.NonNull;
+import androidx.paging.PagingSource;
 import com.example.hometask.api.ApiResponse;
 import com.example.hometask.api.ApiService;
+import com.example.hometask.api.CacheStats;
 import com.example.hometask.api.RetrofitClient;
+import com.example.hometask.api.UserStream;
 import com.example.hometask.database.AppDatabase;
+import com.example.hometask.database.MergeMode;
+import com.example.hometask.database.MergeResult;
+import com.example.hometask.database.SyncCheckpointDao;
+import com.example.hometask.database.UserCounts;
 import com.example.hometask.database.UserDao;
+import com.example.hometask.database.UserSort;
+import com.example.hometask.model.SyncCheckpoint;
 import com.example.hometask.model.User;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -20,11 +44,114 @@ import retrofit2.Response;
 /**
  * UserRepository acts as a single source of truth for all user-related data operations.
  * It manages the interaction between the remote data source (API) and local data source (Room database).
+ * Database work is split between a pool of reader threads and a single writer thread. The database
+ * runs in WAL mode, so list loads, searches and counts never wait behind a sync merging pages, while
+ * all writes stay serialized in the order they were requested.
+ * There is one repository per process, obtained with {@link #getInstance(Context)}, so writes from
+ * every screen go through the same writer and the pools are created once. Their threads exit when idle,
+ * so the repository holds no threads while the app does nothing and never needs to be shut down.
+ * Every operation is available both with a {@link RepositoryCallback} and as a Guava ListenableFuture.
+ * The futures compose with the Futures combinators, for example to run operations in parallel,
+ * to limit them with {@link #withTimeout(ListenableFuture, long, TimeUnit)} or to continue on another
+ * executor; the callback methods are thin adapters over them.
+ * Users read from the database are kept in a write-through {@link UserCache}, so repeated loads of
+ * the user list and lookups by ID are answered from memory.
  */
 public class UserRepository {
+    /**
+     * Default number of page requests kept in flight by a sync.
+     * Kept below the shared dispatcher's per-host request limit, leaving room for hedged requests.
+     */
+    public static final int DEFAULT_PAGE_CONCURRENCY = 4;
+
+    /**
+     * Default number of pages a sync may fetch ahead of the page being merged.
+     * Twice the concurrency, so requests keep flowing while the database writer works through a page.
+     */
+    public static final int DEFAULT_PREFETCH_DEPTH = 2 * DEFAULT_PAGE_CONCURRENCY;
+
+    /**
+     * Number of users handed from the network reader to the database writer at a time in streaming mode.
+     */
+    private static final int STREAM_CHUNK_SIZE = 50;
+
+    /**
+     * Number of chunks the streaming reader may get ahead of the database writer before it blocks.
+     */
+    private static final int STREAM_MAX_PENDING_CHUNKS = 4;
+
+    /**
+     * Maximum number of users returned by a search.
+     */
+    private static final int SEARCH_RESULT_LIMIT = 1000;
+
+    /**
+     * Name under which the users sync stores its checkpoint.
+     */
+    private static final String USERS_SYNC = "users";
+
+    /**
+     * Checkpoints older than this are discarded and the sync starts over from page 1.
+     */
+    private static final long CHECKPOINT_MAX_AGE_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * Number of attempts made for a page before its failure fails the sync.
+     */
+    private static final int MAX_PAGE_ATTEMPTS = 5;
+
+    /**
+     * Upper bound of the delay before the first retry of a page; it doubles with every further retry.
+     */
+    private static final long RETRY_BASE_DELAY_MILLIS = 500;
+
+    /**
+     * Cap on the upper bound of any retry delay.
+     */
+    private static final long RETRY_MAX_DELAY_MILLIS = 30_000;
+
+    /**
+     * Number of consecutive failed API calls that opens the circuit breaker.
+     */
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+
+    /**
+     * How long the circuit breaker fails API calls immediately before letting a probe through.
+     */
+    private static final long CIRCUIT_COOL_DOWN_MILLIS = 30_000;
+
+    /**
+     * Number of threads running database reads. In WAL mode each of them can use its own reader
+     * connection, so reads run in parallel with each other and with the writer.
+     */
+    private static final int READ_THREADS = 4;
+
+    /**
+     * Default memory budget of the in-memory user cache, enough for several thousand users.
+     */
+    public static final long DEFAULT_USER_CACHE_BYTES = 2L * 1024 * 1024;
+
     private final ApiService apiService;
+    private final AppDatabase database;
     private final UserDao userDao;
-    private final Executor executor = Executors.newSingleThreadExecutor();
+    private final SyncCheckpointDao checkpointDao;
+    private final InstrumentedExecutor readExecutor = new InstrumentedExecutor("UserRepository-read", READ_THREADS);
+    private final InstrumentedExecutor writeExecutor = new InstrumentedExecutor("UserRepository-write", 1);
+    private final InstrumentedExecutor streamExecutor = new InstrumentedExecutor("UserRepository-stream", 1);
+    private final ScheduledExecutorService retryScheduler = newRetryScheduler();
+    private final Random random = new Random();
+    private volatile int pageConcurrency = DEFAULT_PAGE_CONCURRENCY;
+    private volatile int prefetchDepth = DEFAULT_PREFETCH_DEPTH;
+    private volatile MergeMode mergeMode = MergeMode.DIFF;
+    private final PageSizeController pageSizeController = new PageSizeController();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(CIRCUIT_FAILURE_THRESHOLD, CIRCUIT_COOL_DOWN_MILLIS);
+    private final UserCache userCache = new UserCache(DEFAULT_USER_CACHE_BYTES);
+
+    private final Object syncLock = new Object();
+    private SyncRun inFlightSync;
+    private MergeResult lastSyncResult;
+    private long lastSyncCompletedAt;
+    private volatile long minSyncIntervalMillis = 0;
 
     /**
      * Callback interface for repository operations.
@@ -35,139 +162,990 @@ public class UserRepository {
         void onError(Exception e);
     }
 
+    /**
+     * An operation of the callback-based API, started with its callback.
+     */
+    private interface CallbackOperation<T> {
+        Cancellable start(RepositoryCallback<T> callback);
+    }
+
+    /**
+     * A sync strategy that can be run behind the single-flight gate.
+     */
+    private interface SyncOperation {
+        void run(CancellableOperation operation, RepositoryCallback<MergeResult> callback);
+    }
+
+    /**
+     * A sync shared by every caller that asked for it while it was running.
+     * It is cancelled only once every one of those callers has cancelled.
+     * Guarded by syncLock.
+     */
+    private static final class SyncRun {
+        final CancellableOperation operation = new CancellableOperation();
+        final List<RepositoryCallback<MergeResult>> callbacks = new ArrayList<>();
+        boolean finished;
+    }
+
+    /**
+     * The process-wide instance, shared by every screen.
+     */
+    private static volatile UserRepository INSTANCE;
+
+    /**
+     * Gets the process-wide instance of the repository.
+     * If the instance doesn't exist, it creates one.
+     * This method is thread-safe.
+     * @param context Any context; only the application context is kept.
+     * @return The shared UserRepository.
+     */
+    public static UserRepository getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (UserRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new UserRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
     /**
      * Constructor for UserRepository.
      * @param context The application context.
      */
-    public UserRepository(Context context) {
-        apiService = RetrofitClient.getClient().create(ApiService.class);
-        AppDatabase db = AppDatabase.getInstance(context);
-        userDao = db.userDao();
+    private UserRepository(Context context) {
+        apiService = RetrofitClient.getClient(context).create(ApiService.class);
+        database = AppDatabase.getInstance(context);
+        userDao = database.userDao();
+        checkpointDao = database.syncCheckpointDao();
+    }
+
+    /**
+     * Creates the scheduler of page retries. Like the other pools, its thread exits when idle.
+     * @return The retry scheduler.
+     */
+    private static ScheduledExecutorService newRetryScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                new InstrumentedExecutor.NamedThreadFactory("UserRepository-retry"));
+        scheduler.setKeepAliveTime(InstrumentedExecutor.KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        scheduler.allowCoreThreadTimeOut(true);
+        return scheduler;
     }
 
     /**
      * Synchronizes users from the API with the local database.
+     * Only one sync runs at a time: a call made while a sync is in flight does not start a new one
+     * but receives the result of the running sync. Within the interval set by
+     * {@link #setMinSyncInterval(long, TimeUnit)}, the result of the last successful sync is returned
+     * without any network or database work.
+     * @param callback Callback receiving the inserted, updated and unchanged counts of the merge.
+     * @return A handle to cancel the sync for this caller; the sync stops once no caller is waiting for it.
+     */
+    public Cancellable syncUsersFromApi(final RepositoryCallback<MergeResult> callback) {
+        return runSingleFlightSync(callback, this::fetchAndMergeUsers);
+    }
+
+    /**
+     * Synchronizes users from the API with the local database without holding whole pages in memory.
+     * Pages are read one after another as streams; users are handed in chunks to the write executor,
+     * which merges each chunk in its own transaction while the next chunk is still being downloaded.
+     * Shares the single-flight and minimum interval policy of {@link #syncUsersFromApi(RepositoryCallback)}.
+     * @param callback Callback receiving the combined merge counts of all chunks.
+     * @return A handle to cancel the sync for this caller; the sync stops once no caller is waiting for it.
+     */
+    public Cancellable syncUsersStreaming(final RepositoryCallback<MergeResult> callback) {
+        return runSingleFlightSync(callback, this::streamAndMergeUsers);
+    }
+
+    /**
+     * Returns the repository's thread pools with their queue wait and run time histograms and task counters,
+     * in the order read, write, stream.
+     * @return The instrumented executors.
+     */
+    public List<InstrumentedExecutor> getExecutors() {
+        List<InstrumentedExecutor> executors = new ArrayList<>();
+        executors.add(readExecutor);
+        executors.add(writeExecutor);
+        executors.add(streamExecutor);
+        return executors;
+    }
+
+    /**
+     * Synchronizes users from the API, as {@link #syncUsersFromApi(RepositoryCallback)} does.
+     * Cancelling the future detaches this caller; the sync stops once no caller is waiting for it.
+     * @return A future of the inserted, updated and unchanged counts of the merge.
+     */
+    public ListenableFuture<MergeResult> syncUsersFromApiAsync() {
+        return toFuture(this::syncUsersFromApi);
+    }
+
+    /**
+     * Synchronizes users from the API by streaming, as {@link #syncUsersStreaming(RepositoryCallback)} does.
+     * Cancelling the future detaches this caller; the sync stops once no caller is waiting for it.
+     * @return A future of the combined merge counts of all chunks.
+     */
+    public ListenableFuture<MergeResult> syncUsersStreamingAsync() {
+        return toFuture(this::syncUsersStreaming);
+    }
+
+    /**
+     * Returns the circuit breaker guarding the API. While it is open, syncs fail immediately with a
+     * {@link CircuitOpenException} instead of waiting for network timeouts.
+     * @return The circuit breaker.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Sets the minimum time between two syncs. A sync requested sooner after the last successful one
+     * returns that sync's result instead of contacting the API. 0 disables the policy.
+     * @param interval The minimum interval.
+     * @param unit The unit of the interval.
+     */
+    public void setMinSyncInterval(long interval, TimeUnit unit) {
+        minSyncIntervalMillis = unit.toMillis(Math.max(interval, 0));
+    }
+
+    /**
+     * Starts a sync unless one is already running, in which case the callback joins it.
+     * Returns the cached outcome instead when the last successful sync is recent enough.
      * @param callback Callback to handle the result.
+     * @param operation The sync to start if none is in flight.
+     * @return A handle that detaches the callback, and cancels the sync when no other caller waits for it.
      */
-    public void syncUsersFromApi(final RepositoryCallback<List<User>> callback) {
-        getAllUsers(new RepositoryCallback<>() {
-            @Override
-            public void onSuccess(List<User> apiUsers) {
-                mergeUsersWithDatabase(apiUsers, callback);
+    private Cancellable runSingleFlightSync(RepositoryCallback<MergeResult> callback, SyncOperation operation) {
+        final CancellableOperation handle = new CancellableOperation();
+        final RepositoryCallback<MergeResult> guarded = handle.guard(callback);
+        MergeResult recentResult = null;
+        SyncRun joined = null;
+        boolean start = false;
+        synchronized (syncLock) {
+            long now = SystemClock.elapsedRealtime();
+            if (lastSyncResult != null && now - lastSyncCompletedAt < minSyncIntervalMillis) {
+                recentResult = lastSyncResult;
+            } else {
+                if (inFlightSync == null) {
+                    inFlightSync = new SyncRun();
+                    start = true;
+                }
+                joined = inFlightSync;
+                joined.callbacks.add(guarded);
             }
+        }
+        if (recentResult != null) {
+            guarded.onSuccess(recentResult);
+            return handle;
+        }
+        final SyncRun run = joined;
+        handle.onCancel(() -> leaveSync(run, guarded));
+        if (start) {
+            operation.run(run.operation, new RepositoryCallback<>() {
+                @Override
+                public void onSuccess(MergeResult result) {
+                    for (RepositoryCallback<MergeResult> waiting : finishSync(run, result)) {
+                        waiting.onSuccess(result);
+                    }
+                }
 
-            @Override
-            public void onError(Exception e) {
+                @Override
+                public void onError(Exception e) {
+                    for (RepositoryCallback<MergeResult> waiting : finishSync(run, null)) {
+                        waiting.onError(e);
+                    }
+                }
+            });
+        }
+        return handle;
+    }
+
+    /**
+     * Removes a cancelled caller from a sync. When it was the last one, the sync is cancelled and
+     * detached, so the next request starts a new sync instead of joining the one winding down.
+     * @param run The sync the caller had joined.
+     * @param callback The caller's callback.
+     */
+    private void leaveSync(SyncRun run, RepositoryCallback<MergeResult> callback) {
+        synchronized (syncLock) {
+            run.callbacks.remove(callback);
+            if (run.finished || !run.callbacks.isEmpty()) {
+                return;
+            }
+            run.finished = true;
+            if (inFlightSync == run) {
+                inFlightSync = null;
+            }
+        }
+        run.operation.cancel();
+    }
+
+    /**
+     * Ends a sync, remembering its result if it succeeded.
+     * @param run The sync that ended.
+     * @param result The result of the sync, or null if it failed.
+     * @return The callbacks that were waiting for the sync.
+     */
+    private List<RepositoryCallback<MergeResult>> finishSync(SyncRun run, MergeResult result) {
+        synchronized (syncLock) {
+            List<RepositoryCallback<MergeResult>> callbacks = new ArrayList<>(run.callbacks);
+            run.callbacks.clear();
+            if (run.finished) {
+                return callbacks;
+            }
+            run.finished = true;
+            if (inFlightSync == run) {
+                inFlightSync = null;
+            }
+            if (result != null) {
+                lastSyncResult = result;
+                lastSyncCompletedAt = SystemClock.elapsedRealtime();
+            }
+            return callbacks;
+        }
+    }
+
+    /**
+     * Fetches every page from the API and merges the pages into the database one by one, in page order.
+     * Each page is committed in its own transaction together with a checkpoint, so a sync that fails
+     * midway resumes after the last committed page instead of starting over from page 1.
+     * A page the server reports as not modified is not merged again if the database holds the
+     * validator of that exact content from an earlier merge; its users are counted as unchanged.
+     * The validator is stored in the same transaction as the page, so the HTTP cache alone, which
+     * other calls fill too and which outlives a wiped database, never decides that a page can be skipped.
+     * The page size is chosen by the {@link PageSizeController} when the sync starts and kept until it ends;
+     * a resumed sync keeps the page size stored in its checkpoint.
+     * @param operation The cancellation state of the sync.
+     * @param callback Callback receiving the inserted, updated and unchanged counts of the merge.
+     */
+    private void fetchAndMergeUsers(final CancellableOperation operation, final RepositoryCallback<MergeResult> callback) {
+        writeExecutor.execute(() -> {
+            SyncCheckpoint checkpoint;
+            try {
+                operation.throwIfCancelled();
+                checkpoint = loadResumableCheckpoint();
+            } catch (Exception e) {
                 callback.onError(e);
+                return;
+            }
+            if (checkpoint != null) {
+                mergePages(checkpoint.getLastCommittedPage() + 1, checkpoint.getTotalPages(),
+                        checkpoint.getPerPage(), null, operation, callback);
+                return;
             }
+            final int perPage = pageSizeController.getPageSize();
+            fetchPageWithRetry(1, perPage, operation, new RepositoryCallback<>() {
+                @Override
+                public void onSuccess(UserPage firstPage) {
+                    mergePages(1, Math.max(firstPage.getTotalPages(), 1), perPage, firstPage, operation, callback);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    callback.onError(e);
+                }
+            });
         });
     }
 
     /**
-     * Fetches all users from the API.
-     * @param callback Callback to handle the result.
+     * Returns the checkpoint of an interrupted users sync, if it is recent enough to resume from.
+     * Must be called on the write executor, as it may delete an expired checkpoint.
+     * @return The checkpoint to resume from, or null to start from page 1.
      */
-    public void getAllUsers(final RepositoryCallback<List<User>> callback) {
-        final List<User> allUsers = new ArrayList<>();
-
-        fetchUsersFromPage(1, new RepositoryCallback<>() {
-            @Override
-            public void onSuccess(List<User> users) {
-                allUsers.addAll(users);
+    private SyncCheckpoint loadResumableCheckpoint() {
+        SyncCheckpoint checkpoint = checkpointDao.getCheckpoint(USERS_SYNC);
+        if (checkpoint == null) {
+            return null;
+        }
+        long age = System.currentTimeMillis() - checkpoint.getUpdatedAt();
+        if (age < 0 || age > CHECKPOINT_MAX_AGE_MILLIS
+                || checkpoint.getLastCommittedPage() >= checkpoint.getTotalPages()) {
+            checkpointDao.deleteCheckpoint(USERS_SYNC);
+            return null;
+        }
+        return checkpoint;
+    }
 
-                fetchUsersFromPage(2, new RepositoryCallback<>() {
+    /**
+     * Fetches pages firstPage..totalPages and commits each one, with its checkpoint, as soon as
+     * it and every page before it have arrived. The checkpoint is removed once the last page is committed.
+     * Fetching and merging are pipelined: while a page is merged on the write executor, the following
+     * pages are downloaded, up to {@link #setPrefetchDepth(int)} pages ahead. When the writer falls behind,
+     * no new requests are started until it catches up, so the sync takes about as long as the slower of
+     * the two stages rather than their sum. Once the sync is cancelled, no further page is requested
+     * or committed; the pages committed so far stay, and the checkpoint lets the next sync resume after them.
+     * @param firstPage The first page to merge.
+     * @param totalPages The last page to merge.
+     * @param perPage The page size to request, or 0 for the server's default.
+     * @param prefetched The first page if it has already been fetched, or null.
+     * @param operation The cancellation state of the sync.
+     * @param callback Callback receiving the combined merge counts of the merged pages.
+     */
+    private void mergePages(int firstPage, final int totalPages, final int perPage, UserPage prefetched,
+                            final CancellableOperation operation, final RepositoryCallback<MergeResult> callback) {
+        final AtomicReference<MergeResult> total = new AtomicReference<>(MergeResult.empty());
+        PageFanOut.PageConsumer committer = (page, done) -> writeExecutor.execute(() -> {
+            try {
+                operation.throwIfCancelled();
+                MergeResult pageResult = database.runInTransaction(() -> {
+                    MergeResult merged;
+                    if (page.isNotModified() && checkpointDao.isPageMerged(USERS_SYNC, page.getPage(), perPage,
+                            page.getValidator())) {
+                        merged = new MergeResult(0, 0, page.getUsers().size());
+                    } else {
+                        merged = userDao.mergeUsers(page.getUsers(), mergeMode);
+                        checkpointDao.recordMergedPage(USERS_SYNC, page.getPage(), perPage, page.getValidator());
+                    }
+                    checkpointDao.saveCheckpoint(new SyncCheckpoint(USERS_SYNC, page.getPage(), totalPages,
+                            perPage, System.currentTimeMillis()));
+                    return merged;
+                });
+                if (pageResult.getInserted() + pageResult.getUpdated() > 0) {
+                    userCache.invalidate(page.getUsers());
+                }
+                total.set(total.get().plus(pageResult));
+                done.onSuccess(null);
+            } catch (Exception e) {
+                done.onError(e);
+            }
+        });
+        PageFanOut.PageSource source = (page, pageCallback) -> fetchPageWithRetry(page, perPage, operation, pageCallback);
+        new PageFanOut(firstPage, totalPages, pageConcurrency, prefetchDepth, source, committer,
+                new RepositoryCallback<>() {
                     @Override
-                    public void onSuccess(List<User> users) {
-                        allUsers.addAll(users);
-                        callback.onSuccess(allUsers);
+                    public void onSuccess(Void result) {
+                        writeExecutor.execute(() -> {
+                            try {
+                                database.runInTransaction(() -> {
+                                    checkpointDao.deleteCheckpoint(USERS_SYNC);
+                                    checkpointDao.deleteStalePages(USERS_SYNC, perPage, totalPages);
+                                });
+                                callback.onSuccess(total.get());
+                            } catch (Exception e) {
+                                callback.onError(e);
+                            }
+                        });
                     }
 
                     @Override
                     public void onError(Exception e) {
                         callback.onError(e);
                     }
-                });
+                }).start(prefetched);
+    }
+
+    /**
+     * Streams every page from the API into the database, one write task per chunk.
+     * Cancelling the sync aborts the page being downloaded and discards the chunks not merged yet.
+     * @param operation The cancellation state of the sync.
+     * @param callback Callback receiving the combined merge counts of all chunks.
+     */
+    private void streamAndMergeUsers(final CancellableOperation operation, final RepositoryCallback<MergeResult> callback) {
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        operation.onCancel(() -> failure.compareAndSet(null, new CancellationException("Sync cancelled")));
+        streamExecutor.execute(() -> readStreamedPages(failure, operation, callback));
+    }
+
+    /**
+     * Reads every page of users as a stream and hands the users to the write executor in chunks,
+     * each merged in its own transaction. The writer thread is only taken while a chunk is merged,
+     * so edits, additions and deletions made during the download are not held up behind it.
+     * At most {@link #STREAM_MAX_PENDING_CHUNKS} chunks wait for the writer at a time; beyond that
+     * the reader blocks, so it never gets far ahead of the database.
+     * Once the reader is done, a last write task reports the outcome; it runs after every chunk,
+     * as the write executor runs its tasks in order.
+     * @param failure Holder for the first error raised by the reader or a chunk.
+     * @param operation The cancellation state of the sync, which aborts the call in progress.
+     * @param callback Callback receiving the combined merge counts of all chunks.
+     */
+    private void readStreamedPages(final AtomicReference<Exception> failure, CancellableOperation operation,
+                                   final RepositoryCallback<MergeResult> callback) {
+        final Semaphore pendingChunks = new Semaphore(STREAM_MAX_PENDING_CHUNKS);
+        final AtomicReference<MergeResult> total = new AtomicReference<>(MergeResult.empty());
+        try {
+            int page = 1;
+            int totalPages = 1;
+            while (page <= totalPages && failure.get() == null) {
+                if (!circuitBreaker.tryAcquire()) {
+                    throw new CircuitOpenException(circuitBreaker.getRemainingCoolDownMillis());
+                }
+                Call<UserStream> call = apiService.streamUsers(page);
+                Runnable cancelCall = call::cancel;
+                operation.onCancel(cancelCall);
+                int streamTotalPages;
+                try {
+                    Response<UserStream> response;
+                    try {
+                        response = call.execute();
+                    } catch (IOException e) {
+                        if (operation.isCancelled()) {
+                            circuitBreaker.recordCancelled();
+                            throw new CancellationException("Sync cancelled");
+                        }
+                        circuitBreaker.recordFailure();
+                        throw new PageFetchException(page, e);
+                    } catch (RuntimeException e) {
+                        // A converter failing on the response must still settle the permit taken above,
+                        // or a half-open circuit breaker would reject every later call
+                        circuitBreaker.recordFailure();
+                        throw new PageFetchException(page, e);
+                    }
+                    UserStream stream = response.body();
+                    if (!response.isSuccessful() || stream == null) {
+                        PageFetchException error = new PageFetchException(page, response.code());
+                        recordCallOutcome(error);
+                        throw error;
+                    }
+                    circuitBreaker.recordSuccess();
+                    // A page served from the cache or revalidated with 304 is skipped only if an earlier sync merged it
+                    final int streamedPage = page;
+                    final String validator = validatorOf(response.raw());
+                    boolean unchanged = CacheStats.isUnchanged(response.raw())
+                            && checkpointDao.isPageMerged(USERS_SYNC, page, 0, validator);
+                    try {
+                        while (!unchanged && failure.get() == null && stream.hasMore()) {
+                            final List<User> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+                            stream.readChunk(chunk, STREAM_CHUNK_SIZE);
+                            if (!chunk.isEmpty()) {
+                                pendingChunks.acquire();
+                                writeExecutor.execute(() -> mergeStreamedChunk(chunk, failure, total, pendingChunks));
+                            }
+                        }
+                        if (unchanged && failure.get() == null) {
+                            // total_pages may follow the "data" array, so a skipped page is still read to its end
+                            stream.skipRemaining();
+                        }
+                        streamTotalPages = stream.getTotalPages();
+                    } catch (IOException e) {
+                        operation.throwIfCancelled();
+                        throw e;
+                    } finally {
+                        stream.close();
+                    }
+                    if (!unchanged) {
+                        // Runs after the page's chunks, so the validator is only recorded once all of them are merged
+                        writeExecutor.execute(() -> {
+                            if (failure.get() == null) {
+                                checkpointDao.recordMergedPage(USERS_SYNC, streamedPage, 0, validator);
+                            }
+                        });
+                    }
+                } finally {
+                    operation.removeOnCancel(cancelCall);
+                }
+                if (streamTotalPages > 0) {
+                    // A page that does not report total_pages keeps the count known from the earlier ones
+                    totalPages = streamTotalPages;
+                }
+                page++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        }
+        writeExecutor.execute(() -> {
+            Exception error = failure.get();
+            if (error != null) {
+                callback.onError(error);
+            } else {
+                callback.onSuccess(total.get());
+            }
+        });
+    }
+
+    /**
+     * Merges one streamed chunk into the database in a single transaction, unless the sync has failed.
+     * Runs on the write executor.
+     * @param chunk The users to merge.
+     * @param failure Holder for the first error raised by the reader or a chunk.
+     * @param total The combined merge counts so far, updated with this chunk's counts.
+     * @param pendingChunks Released once the chunk is done, letting the reader hand over another one.
+     */
+    private void mergeStreamedChunk(List<User> chunk, AtomicReference<Exception> failure,
+                                    AtomicReference<MergeResult> total, Semaphore pendingChunks) {
+        try {
+            if (failure.get() == null) {
+                total.set(total.get().plus(userDao.mergeUsers(chunk, mergeMode)));
+                userCache.invalidate(chunk);
+            }
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            pendingChunks.release();
+        }
+    }
+
+    /**
+     * Fetches all users from the API.
+     * Page 1 is fetched first to learn the total page count, then the remaining pages are
+     * requested concurrently (at most {@link #setPageConcurrency(int)} at a time).
+     * The combined result is assembled in page order.
+     * @param callback Callback to handle the result.
+     * @return A handle that cancels the page requests still in flight.
+     */
+    public Cancellable getAllUsers(RepositoryCallback<List<User>> callback) {
+        return adapt(getAllUsersAsync(), callback);
+    }
+
+    /**
+     * Fetches all users from the API, as {@link #getAllUsers(RepositoryCallback)} does.
+     * The remaining pages go through a {@link PageFanOut}, which starts the next page as soon as any request
+     * completes, so a slow page never holds back the pages behind it. The first failure fails the future
+     * and cancels the other requests. Cancelling the future cancels every request in flight.
+     * @return A future of all users in page order.
+     */
+    public ListenableFuture<List<User>> getAllUsersAsync() {
+        final int perPage = pageSizeController.getPageSize();
+        final int concurrency = pageConcurrency;
+        final CancellableOperation operation = new CancellableOperation();
+        final SettableFuture<List<User>> future = SettableFuture.create();
+        future.addListener(() -> {
+            if (future.isCancelled()) {
+                operation.cancel();
+            }
+        }, MoreExecutors.directExecutor());
+        // Only appended to by the fan-out's consumer, which it calls one page at a time
+        final List<User> allUsers = new ArrayList<>();
+        final RepositoryCallback<Void> done = new RepositoryCallback<>() {
+            @Override
+            public void onSuccess(Void result) {
+                future.set(allUsers);
             }
 
             @Override
             public void onError(Exception e) {
-                callback.onError(e);
+                if (future.setException(e)) {
+                    operation.cancel();
+                }
+            }
+        };
+        fetchPageWithRetry(1, perPage, operation, new RepositoryCallback<>() {
+            @Override
+            public void onSuccess(UserPage firstPage) {
+                final int totalPages = Math.max(firstPage.getTotalPages(), 1);
+                PageFanOut.PageSource source = (page, pageCallback) -> fetchPageWithRetry(page, perPage, operation, pageCallback);
+                // Pages are only collected, so fetching may run ahead of the slowest page by the whole range
+                PageFanOut.PageConsumer collector = (page, pageDone) -> {
+                    allUsers.addAll(page.getUsers());
+                    pageDone.onSuccess(null);
+                };
+                new PageFanOut(1, totalPages, concurrency, totalPages, source, collector, done).start(firstPage);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                done.onError(e);
             }
         });
+        return future;
+    }
+
+    /**
+     * Limits how long a future of this repository may take. When the time is up, the future fails with
+     * a TimeoutException and is cancelled, which also cancels its network calls and queued database work.
+     * @param future The future to limit.
+     * @param timeout The time limit.
+     * @param unit The unit of the time limit.
+     * @return A future with the same result, or failing with a TimeoutException.
+     */
+    public <T> ListenableFuture<T> withTimeout(ListenableFuture<T> future, long timeout, TimeUnit unit) {
+        return Futures.withTimeout(future, timeout, unit, retryScheduler);
+    }
+
+    /**
+     * Sets the maximum number of page requests a sync or getAllUsers keeps in flight at once.
+     * @param pageConcurrency The concurrency limit, at least 1.
+     */
+    public void setPageConcurrency(int pageConcurrency) {
+        if (pageConcurrency < 1) {
+            throw new IllegalArgumentException("pageConcurrency must be at least 1");
+        }
+        this.pageConcurrency = pageConcurrency;
+    }
+
+    /**
+     * Sets how many pages a sync may fetch ahead of the page currently being merged, counting that page.
+     * Larger values hide more network latency behind database writes at the cost of holding more
+     * downloaded pages in memory. Values below the page concurrency also limit the requests in flight.
+     * @param prefetchDepth The prefetch window in pages, at least 1.
+     */
+    public void setPrefetchDepth(int prefetchDepth) {
+        if (prefetchDepth < 1) {
+            throw new IllegalArgumentException("prefetchDepth must be at least 1");
+        }
+        this.prefetchDepth = prefetchDepth;
+    }
+
+    /**
+     * Sets the response time the adaptive page size aims at. On high-latency links a longer target
+     * means fewer, larger requests; the page size adapts over the following syncs.
+     * @param target The target time per page request.
+     * @param unit The unit of the target.
+     */
+    public void setTargetPageLatency(long target, TimeUnit unit) {
+        pageSizeController.setTargetMillis(unit.toMillis(target));
+    }
+
+    /**
+     * Sets how syncs treat API users that are already stored locally.
+     * Defaults to {@link MergeMode#DIFF}, which applies remote edits to changed rows only.
+     * @param mergeMode The merge mode to use for subsequent syncs.
+     */
+    public void setMergeMode(MergeMode mergeMode) {
+        this.mergeMode = mergeMode;
     }
 
     /**
      * Retrieves all users from the local database.
      * @param callback Callback to handle the result.
+     * @return A handle that removes the query if it has not started yet.
      */
-    public void getUsersFromDatabase(RepositoryCallback<List<User>> callback) {
-        executor.execute(() -> {
-            try {
-                List<User> users = userDao.getAllUsers();
-                callback.onSuccess(users);
-            } catch (Exception e) {
-                callback.onError(e);
+    public Cancellable getUsersFromDatabase(RepositoryCallback<List<User>> callback) {
+        return adapt(getUsersFromDatabaseAsync(), callback);
+    }
+
+    /**
+     * Retrieves all users from the local database on the read executor.
+     * @return A future of all local users.
+     */
+    public ListenableFuture<List<User>> getUsersFromDatabaseAsync() {
+        return submit(readExecutor, userDao::getAllUsers);
+    }
+
+    /**
+     * Retrieves a user from the local database by ID.
+     * @param id The ID of the user.
+     * @param callback Callback to handle the user, or null if there is no such user.
+     * @return A handle that removes the query if it has not started yet.
+     */
+    public Cancellable getUserById(int id, RepositoryCallback<User> callback) {
+        return adapt(getUserByIdAsync(id), callback);
+    }
+
+    /**
+     * Retrieves a user by ID, from the user cache if it holds the user and from the database otherwise.
+     * @param id The ID of the user.
+     * @return A future of the user, or of null if there is no such user.
+     */
+    public ListenableFuture<User> getUserByIdAsync(int id) {
+        User cached = userCache.get(id);
+        if (cached != null) {
+            return Futures.immediateFuture(cached);
+        }
+        return submit(readExecutor, () -> {
+            long stamp = userCache.stamp();
+            User user = userDao.getUserById(id);
+            if (user != null) {
+                userCache.putIfUnchanged(stamp, user);
+            }
+            return user;
+        });
+    }
+
+    /**
+     * @return The in-memory user cache, with its size and hit, miss and eviction counters.
+     */
+    public UserCache getUserCache() {
+        return userCache;
+    }
+
+    /**
+     * Sets the memory budget of the user cache. Least recently used users are evicted to stay within it.
+     * @param maxBytes The budget in bytes, at least 1.
+     */
+    public void setUserCacheBudget(long maxBytes) {
+        userCache.setMaxBytes(maxBytes);
+    }
+
+    /**
+     * Counts the local users for the dashboard: all of them, and those created after a point in time.
+     * Only the counts are read, so the cost does not grow with the size of the user rows.
+     * @param since The point in time, in milliseconds since the epoch.
+     * @param callback Callback to handle the counts.
+     * @return A handle that removes the queries if they have not started yet.
+     */
+    public Cancellable getUserCounts(long since, RepositoryCallback<UserCounts> callback) {
+        return adapt(getUserCountsAsync(since), callback);
+    }
+
+    /**
+     * Counts the local users for the dashboard on the read executor.
+     * @param since The point in time, in milliseconds since the epoch.
+     * @return A future of the counts.
+     */
+    public ListenableFuture<UserCounts> getUserCountsAsync(long since) {
+        return submit(readExecutor, () -> userDao.getUserCounts(since));
+    }
+
+    /**
+     * Creates a source that pages through the local users in the given order.
+     * A new source must be created whenever the previous one is invalidated, which happens
+     * on every change to the users table.
+     * @param sort The order of the list.
+     * @return The paging source.
+     */
+    public PagingSource<User, User> createUsersPagingSource(UserSort sort) {
+        return new UserPagingSource(database, sort, readExecutor);
+    }
+
+    /**
+     * Searches the local users by first name, last name and email using the full-text index.
+     * Every word of the query must match the beginning of a word in one of those fields.
+     * Results come back sorted by the database in the given order; only the matches are sorted.
+     * With {@link UserSort#RELEVANCE}, users whose fields contain the query's words most often come first.
+     * @param query The text typed by the user.
+     * @param sort The order of the results.
+     * @param callback Callback to handle the matching users; an empty query matches nobody.
+     * @return A handle that removes the search if it has not started yet.
+     */
+    public Cancellable searchUsers(String query, UserSort sort, RepositoryCallback<List<User>> callback) {
+        return adapt(searchUsersAsync(query, sort), callback);
+    }
+
+    /**
+     * Searches the local users using the full-text index on the read executor.
+     * @param query The text typed by the user.
+     * @param sort The order of the results.
+     * @return A future of the matching users; an empty query matches nobody.
+     */
+    public ListenableFuture<List<User>> searchUsersAsync(String query, UserSort sort) {
+        final String ftsQuery = toFtsPrefixQuery(query);
+        if (ftsQuery.isEmpty()) {
+            return Futures.immediateFuture(new ArrayList<>());
+        }
+        return submit(readExecutor, () -> userDao.searchUsers(ftsQuery, sort, SEARCH_RESULT_LIMIT));
+    }
+
+    /**
+     * Turns free text into an FTS4 query that requires a prefix match for every word.
+     * Anything but letters and digits separates words, so FTS operators typed by the user are ignored.
+     * @param text The text typed by the user.
+     * @return The FTS query, for example "jan* smi*", or an empty string if the text has no words.
+     */
+    private static String toFtsPrefixQuery(String text) {
+        StringBuilder query = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append(word).append('*');
+                word.setLength(0);
+            }
+        }
+        return query.toString();
+    }
+
+    /**
+     * Fetches a page, retrying transient failures with jittered exponential backoff.
+     * The n-th retry waits a random time between 0 and min(RETRY_MAX_DELAY_MILLIS, RETRY_BASE_DELAY_MILLIS * 2^(n-1)).
+     * @param page The page number to fetch.
+     * @param perPage The page size to request, or 0 for the server's default.
+     * @param operation The cancellation state of the calling operation; cancelling it also drops a pending retry.
+     * @param callback Callback to handle the page, or the last error once retries are exhausted.
+     */
+    private void fetchPageWithRetry(int page, int perPage, CancellableOperation operation,
+                                    final RepositoryCallback<UserPage> callback) {
+        fetchPageWithRetry(page, perPage, 1, operation, callback);
+    }
+
+    private void fetchPageWithRetry(final int page, final int perPage, final int attempt,
+                                    final CancellableOperation operation, final RepositoryCallback<UserPage> callback) {
+        fetchUsersFromPage(page, perPage, operation, new RepositoryCallback<>() {
+            @Override
+            public void onSuccess(UserPage userPage) {
+                callback.onSuccess(userPage);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                boolean retryable = e instanceof PageFetchException && ((PageFetchException) e).isRetryable();
+                if (!retryable || attempt >= MAX_PAGE_ATTEMPTS) {
+                    callback.onError(e);
+                    return;
+                }
+                long maxDelay = Math.min(RETRY_MAX_DELAY_MILLIS, RETRY_BASE_DELAY_MILLIS << (attempt - 1));
+                long delay = (long) (random.nextDouble() * maxDelay);
+                // The cancel action is removed when the retry starts, so a long sync does not collect one per retry
+                final AtomicReference<ScheduledFuture<?>> retry = new AtomicReference<>();
+                final Runnable cancelRetry = () -> {
+                    ScheduledFuture<?> scheduled = retry.get();
+                    if (scheduled != null && scheduled.cancel(false)) {
+                        callback.onError(new CancellationException("Operation cancelled"));
+                    }
+                };
+                operation.onCancel(cancelRetry);
+                try {
+                    retry.set(retryScheduler.schedule(() -> {
+                        operation.removeOnCancel(cancelRetry);
+                        fetchPageWithRetry(page, perPage, attempt + 1, operation, callback);
+                    }, delay, TimeUnit.MILLISECONDS));
+                    if (operation.isCancelled()) {
+                        // Cancelled before the retry was stored, so the action above could not stop it
+                        cancelRetry.run();
+                    }
+                } catch (RejectedExecutionException rejected) {
+                    operation.removeOnCancel(cancelRetry);
+                    // The retry could not be scheduled; the page fails with its last error
+                    callback.onError(e);
+                }
             }
         });
     }
 
     /**
      * Fetches users from a specific page of the API.
+     * Downloaded pages are reported to the page size controller; pages answered from the cache are not.
      * @param page The page number to fetch.
-     * @param callback Callback to handle the result.
+     * @param perPage The page size to request, or 0 for the server's default.
+     * @param operation The cancellation state of the calling operation, which cancels the call.
+     *                  A cancelled call fails with a CancellationException and does not count against the API.
+     * @param callback Callback to handle the page, including its pagination metadata.
      */
-    private void fetchUsersFromPage(int page, final RepositoryCallback<List<User>> callback) {
-        apiService.getUsers(page).enqueue(new Callback<>() {
+    private void fetchUsersFromPage(int page, int perPage, CancellableOperation operation,
+                                    final RepositoryCallback<UserPage> callback) {
+        if (operation.isCancelled()) {
+            callback.onError(new CancellationException("Operation cancelled"));
+            return;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            callback.onError(new CircuitOpenException(circuitBreaker.getRemainingCoolDownMillis()));
+            return;
+        }
+        final long startedAt = SystemClock.elapsedRealtime();
+        Call<ApiResponse<List<User>>> pageCall = apiService.getUsers(page, perPage > 0 ? perPage : null);
+        // Removed once the call completes, so a long sync does not collect one action per page
+        final Runnable cancelCall = pageCall::cancel;
+        operation.onCancel(cancelCall);
+        pageCall.enqueue(new Callback<>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<List<User>>> call, @NonNull Response<ApiResponse<List<User>>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    List<User> users = response.body().data();
-                    callback.onSuccess(users);
+                operation.removeOnCancel(cancelCall);
+                UserPage userPage = null;
+                PageFetchException error = null;
+                boolean recorded = false;
+                try {
+                    ApiResponse<List<User>> body = response.body();
+                    if (response.isSuccessful() && body != null && body.data() != null) {
+                        circuitBreaker.recordSuccess();
+                        recorded = true;
+                        boolean notModified = CacheStats.isUnchanged(response.raw());
+                        if (!notModified) {
+                            pageSizeController.record(body.data().size(), SystemClock.elapsedRealtime() - startedAt,
+                                    wireSize(response.raw()));
+                        }
+                        userPage = new UserPage(page, body.totalPages(), body.data(), notModified,
+                                validatorOf(response.raw()));
+                    } else {
+                        error = new PageFetchException(page, response.code());
+                        recordCallOutcome(error);
+                        recorded = true;
+                    }
+                } catch (RuntimeException e) {
+                    // Whatever failed, the permit taken from the circuit breaker must be settled,
+                    // or a half-open breaker would reject every later call
+                    if (!recorded) {
+                        circuitBreaker.recordFailure();
+                    }
+                    error = new PageFetchException(page, e);
+                }
+                if (error != null) {
+                    callback.onError(error);
                 } else {
-                    callback.onError(new Exception("API call unsuccessful for page " + page));
+                    callback.onSuccess(userPage);
                 }
             }
 
             @Override
             public void onFailure(@NonNull Call<ApiResponse<List<User>>> call, @NonNull Throwable t) {
-                callback.onError(new Exception(t));
+                operation.removeOnCancel(cancelCall);
+                if (call.isCanceled()) {
+                    circuitBreaker.recordCancelled();
+                    callback.onError(new CancellationException("Operation cancelled"));
+                    return;
+                }
+                // Also reached when the converter fails on the body, which counts against the API like an I/O error
+                PageFetchException error = new PageFetchException(page, t);
+                recordCallOutcome(error);
+                callback.onError(error);
             }
         });
     }
 
     /**
-     * Merges users from the API with the local database.
-     * @param apiUsers List of users from the API.
-     * @param callback Callback to handle the result.
+     * Reports a failed call to the circuit breaker. Only failures that suggest the API is unreachable
+     * or unhealthy count against it; any other answer proves the API is up.
+     * @param error The failure of the call.
      */
-    private void mergeUsersWithDatabase(final List<User> apiUsers, final RepositoryCallback<List<User>> callback) {
-        executor.execute(() -> {
-            List<User> newUsers = new ArrayList<>();
-            for (User apiUser : apiUsers) {
-                User existingUser = userDao.getUserById(apiUser.getId());
-                if (existingUser == null) {
-                    apiUser.setCreatedAt(new Date());
-                    userDao.insertUser(apiUser);
-                    newUsers.add(apiUser);
-                }
-            }
-            callback.onSuccess(newUsers);
-        });
+    private void recordCallOutcome(PageFetchException error) {
+        int code = error.getHttpCode();
+        if (code == 0 || code == 408 || code >= 500) {
+            circuitBreaker.recordFailure();
+        } else {
+            circuitBreaker.recordSuccess();
+        }
+    }
+
+    /**
+     * Returns the validator the server attached to a response, which identifies its content.
+     * @param response The response.
+     * @return The ETag, or the Last-Modified date if there is no ETag, or null if there is neither.
+     */
+    private static String validatorOf(okhttp3.Response response) {
+        String etag = response.header("ETag");
+        return etag != null ? etag : response.header("Last-Modified");
+    }
+
+    /**
+     * Returns the size of a response body as transferred over the network, before decompression.
+     * @param response The response.
+     * @return The size in bytes, or -1 if the server did not send a Content-Length.
+     */
+    private static long wireSize(okhttp3.Response response) {
+        okhttp3.Response networkResponse = response.networkResponse();
+        String contentLength = networkResponse != null ? networkResponse.header("Content-Length") : null;
+        if (contentLength == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentLength);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     /**
      * Deletes a user from the local database.
      * @param user The user to delete.
      * @param callback Callback to handle the result.
+     * @return A handle that removes the write if it has not started yet.
      */
-    public void deleteUser(User user, RepositoryCallback<Void> callback) {
-        executor.execute(() -> {
-            try {
+    public Cancellable deleteUser(User user, RepositoryCallback<Void> callback) {
+        return adapt(deleteUserAsync(user), callback);
+    }
+
+    /**
+     * Deletes a user from the local database on the write executor.
+     * The validators of the merged pages are dropped with it, so the next sync merges every page
+     * again and restores the user if the API still has it.
+     * @param user The user to delete.
+     * @return A future completing once the user is deleted.
+     */
+    public ListenableFuture<Void> deleteUserAsync(User user) {
+        return submit(writeExecutor, () -> {
+            database.runInTransaction(() -> {
                 userDao.deleteUser(user);
-                callback.onSuccess(null);
-            } catch (Exception e) {
-                callback.onError(e);
-            }
+                checkpointDao.deletePages(USERS_SYNC);
+            });
+            userCache.remove(user.getId());
+            return null;
         });
     }
 
@@ -175,15 +1153,22 @@ public class UserRepository {
      * Updates a user in the local database.
      * @param user The user to update.
      * @param callback Callback to handle the result.
+     * @return A handle that removes the write if it has not started yet.
      */
-    public void updateUser(User user, RepositoryCallback<Void> callback) {
-        executor.execute(() -> {
-            try {
-                userDao.updateUser(user);
-                callback.onSuccess(null);
-            } catch (Exception e) {
-                callback.onError(e);
-            }
+    public Cancellable updateUser(User user, RepositoryCallback<Void> callback) {
+        return adapt(updateUserAsync(user), callback);
+    }
+
+    /**
+     * Updates a user in the local database on the write executor.
+     * @param user The user to update.
+     * @return A future completing once the user is updated.
+     */
+    public ListenableFuture<Void> updateUserAsync(User user) {
+        return submit(writeExecutor, () -> {
+            userDao.updateUser(user);
+            userCache.put(user);
+            return null;
         });
     }
 
@@ -191,15 +1176,92 @@ public class UserRepository {
      * Adds a new user to the local database.
      * @param user The user to add.
      * @param callback Callback to handle the result.
+     * @return A handle that removes the write if it has not started yet.
      */
-    public void addUser(User user, RepositoryCallback<Long> callback) {
-        executor.execute(() -> {
-            try {
-                long newUserId = userDao.insertUser(user);
-                callback.onSuccess(newUserId);
-            } catch (Exception e) {
-                callback.onError(e);
+    public Cancellable addUser(User user, RepositoryCallback<Long> callback) {
+        return adapt(addUserAsync(user), callback);
+    }
+
+    /**
+     * Adds a new user to the local database on the write executor.
+     * @param user The user to add.
+     * @return A future of the ID of the new user.
+     */
+    public ListenableFuture<Long> addUserAsync(User user) {
+        return submit(writeExecutor, () -> {
+            long newUserId = userDao.insertUser(user);
+            User added = UserCache.copyOf(user);
+            added.setId((int) newUserId);
+            userCache.put(added);
+            return newUserId;
+        });
+    }
+
+    /**
+     * Runs a database task on one of the repository's executors. Cancelling the future before
+     * the task starts removes it from the queue; after that, the task completes but its result is dropped.
+     * @param executor The read or write executor.
+     * @param task The task computing the result.
+     * @return A future of the result.
+     */
+    private static <T> ListenableFuture<T> submit(InstrumentedExecutor executor, Callable<T> task) {
+        ListenableFuture<T> future = Futures.submit(task, executor);
+        future.addListener(() -> {
+            if (future.isCancelled()) {
+                executor.purge();
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * Turns a callback-based operation into a future. Cancelling the future cancels the operation.
+     * @param operation Starts the operation with the given callback.
+     * @return A future of the operation's result.
+     */
+    private static <T> ListenableFuture<T> toFuture(CallbackOperation<T> operation) {
+        final SettableFuture<T> future = SettableFuture.create();
+        final Cancellable handle = operation.start(new RepositoryCallback<>() {
+            @Override
+            public void onSuccess(T result) {
+                future.set(result);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                future.setException(e);
             }
         });
+        future.addListener(() -> {
+            if (future.isCancelled()) {
+                handle.cancel();
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * Delivers the outcome of a future to a callback; the callback methods are thin adapters over the
+     * future-based API. Cancelling the returned handle cancels the future and silences the callback.
+     * @param future The future of the operation.
+     * @param callback Callback to handle the result.
+     * @return A handle to cancel the operation.
+     */
+    private static <T> Cancellable adapt(ListenableFuture<T> future, RepositoryCallback<T> callback) {
+        final CancellableOperation operation = new CancellableOperation();
+        final RepositoryCallback<T> guarded = operation.guard(callback);
+        operation.onCancel(() -> future.cancel(false));
+        Futures.addCallback(future, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                guarded.onSuccess(result);
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                guarded.onError(t instanceof Exception ? (Exception) t : new ExecutionException(t));
+            }
+        }, MoreExecutors.directExecutor());
+        return operation;
     }
-}
\ No newline at end of file
+}
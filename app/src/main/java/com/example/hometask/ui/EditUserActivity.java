@@ -74,7 +74,7 @@ public class EditUserActivity extends AppCompatActivity {
 
         User user = (User) getIntent().getSerializableExtra("USER");
         if (user != null) {
-            viewModel.setUser(user);
+            viewModel.loadUser(user);
         }
     }
 
@@ -7,26 +7,24 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
 import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.example.hometask.R;
 import com.example.hometask.model.User;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Objects;
 
 /**
  * UserAdapter is a RecyclerView adapter for displaying a list of User objects.
- * It extends ListAdapter for efficient list updates using DiffUtil.
+ * It extends PagingDataAdapter, so users are bound from pages loaded on demand,
+ * and list updates are diffed with DiffUtil in the background.
  */
-public class UserAdapter extends ListAdapter<User, UserAdapter.UserViewHolder> {
+public class UserAdapter extends PagingDataAdapter<User, UserAdapter.UserViewHolder> {
 
     private OnUserClickListener listener;
-    private List<User> users = Collections.synchronizedList(new ArrayList<>());
 
     /**
      * Interface for handling user click events.
@@ -74,7 +72,9 @@ public class UserAdapter extends ListAdapter<User, UserAdapter.UserViewHolder> {
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
         User user = getItem(position);
-        holder.bind(user);
+        if (user != null) {
+            holder.bind(user);
+        }
     }
 
     /**
@@ -88,41 +88,14 @@ public class UserAdapter extends ListAdapter<User, UserAdapter.UserViewHolder> {
 
         @Override
         public boolean areContentsTheSame(@NonNull User oldItem, @NonNull User newItem) {
-            return oldItem.equals(newItem);
+            // User.equals only compares IDs; an edited user must still be rebound
+            return Objects.equals(oldItem.getEmail(), newItem.getEmail())
+                    && Objects.equals(oldItem.getFirstName(), newItem.getFirstName())
+                    && Objects.equals(oldItem.getLastName(), newItem.getLastName())
+                    && Objects.equals(oldItem.getAvatar(), newItem.getAvatar());
         }
     };
 
-    /**
-     * Submits a new list to be diffed, and displayed.
-     *
-     * @param newList The new list to be displayed.
-     */
-    public void submitList(List<User> newList) {
-        users = Collections.synchronizedList(new ArrayList<>(newList));
-        super.submitList(new ArrayList<>(users));
-    }
-
-    /**
-     * Returns the total number of items in the data set held by the adapter.
-     *
-     * @return The total number of items in this adapter.
-     */
-    @Override
-    public int getItemCount() {
-        return users.size();
-    }
-
-    /**
-     * Returns the item at the specified position in the list.
-     *
-     * @param position The position of the item in the list.
-     * @return The User at the specified position.
-     */
-    @Override
-    public User getItem(int position) {
-        return users.get(position);
-    }
-
     /**
      * ViewHolder class for the UserAdapter.
      */
@@ -145,7 +118,10 @@ public class UserAdapter extends ListAdapter<User, UserAdapter.UserViewHolder> {
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (listener != null && position != RecyclerView.NO_POSITION) {
-                    listener.onUserClick(getItem(position));
+                    User user = peek(position);
+                    if (user != null) {
+                        listener.onUserClick(user);
+                    }
                 }
             });
         }
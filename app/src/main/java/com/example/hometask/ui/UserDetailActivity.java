@@ -228,7 +228,7 @@ public class UserDetailActivity extends AppCompatActivity {
     private void loadUserData() {
         User user = (User) getIntent().getSerializableExtra("USER");
         if (user != null) {
-            viewModel.setUser(user);
+            viewModel.loadUser(user);
         }
     }
 
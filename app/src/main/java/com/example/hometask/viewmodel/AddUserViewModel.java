@@ -28,7 +28,7 @@ public class AddUserViewModel extends AndroidViewModel {
      */
     public AddUserViewModel(@NonNull Application application) {
         super(application);
-        userRepository = new UserRepository(application);
+        userRepository = UserRepository.getInstance(application);
     }
 
     /**
@@ -12,11 +12,13 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.hometask.model.User;
+import com.example.hometask.repository.Cancellable;
 import com.example.hometask.repository.UserRepository;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * ViewModel for the Edit User functionality.
@@ -29,6 +31,7 @@ public class EditUserViewModel extends AndroidViewModel {
     private final MutableLiveData<User> user = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
+    private final AtomicReference<Cancellable> pendingLoad = new AtomicReference<>();
     private final MutableLiveData<Boolean> updateSuccess = new MutableLiveData<>(false);
 
     /**
@@ -37,7 +40,7 @@ public class EditUserViewModel extends AndroidViewModel {
      */
     public EditUserViewModel(Application application) {
         super(application);
-        userRepository = new UserRepository(application);
+        userRepository = UserRepository.getInstance(application);
     }
 
     /**
@@ -76,6 +79,37 @@ public class EditUserViewModel extends AndroidViewModel {
         this.user.setValue(user);
     }
 
+    /**
+     * Shows the user passed to the screen and then reads the stored copy by ID, through the repository's
+     * user cache, so the screen shows the latest edits rather than the copy it was opened with.
+     * Does nothing if a user is already set, so recreating the screen keeps the current state.
+     * @param passedUser The user passed to the screen.
+     */
+    public void loadUser(User passedUser) {
+        if (user.getValue() != null) {
+            return;
+        }
+        user.setValue(passedUser);
+        Cancellable previous = pendingLoad.getAndSet(userRepository.getUserById(passedUser.getId(),
+                new UserRepository.RepositoryCallback<>() {
+                    @Override
+                    public void onSuccess(User stored) {
+                        // A user that is not stored locally keeps the copy it was opened with
+                        if (stored != null) {
+                            user.postValue(stored);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        errorMessage.postValue("Error loading user: " + e.getMessage());
+                    }
+                }));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
     /**
      * Updates the user's information.
      * @param firstName The updated first name.
@@ -143,4 +177,16 @@ public class EditUserViewModel extends AndroidViewModel {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Cancels a user read still waiting to run when the ViewModel is destroyed.
+     */
+    @Override
+    protected void onCleared() {
+        Cancellable pending = pendingLoad.getAndSet(null);
+        if (pending != null) {
+            pending.cancel();
+        }
+        super.onCleared();
+    }
+}
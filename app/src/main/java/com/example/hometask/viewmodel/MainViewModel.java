@@ -4,16 +4,29 @@ import android.app.Application;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
-import com.example.hometask.model.User;
+import com.example.hometask.api.NetworkMetrics;
+import com.example.hometask.api.RetrofitClient;
+import com.example.hometask.database.MergeResult;
+import com.example.hometask.database.UserCounts;
+import com.example.hometask.repository.Cancellable;
+import com.example.hometask.repository.CircuitBreaker;
+import com.example.hometask.repository.CircuitOpenException;
+import com.example.hometask.repository.InstrumentedExecutor;
 import com.example.hometask.repository.UserRepository;
 import java.util.List;
-import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * ViewModel for the Main Activity.
  * Handles the business logic for the main dashboard, including user synchronization and statistics.
  */
 public class MainViewModel extends AndroidViewModel {
+
+    /**
+     * How long ago a user may have been created and still count as recently added.
+     */
+    private static final long RECENT_WINDOW_MILLIS = 5 * 60 * 1000; // 5 minutes
+
     private final UserRepository userRepository;
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>();
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
@@ -21,6 +34,10 @@ public class MainViewModel extends AndroidViewModel {
     private final MutableLiveData<Integer> totalUsers = new MutableLiveData<>();
     private final MutableLiveData<Integer> recentlyAddedUsers = new MutableLiveData<>();
     private final MutableLiveData<Integer> newUsersAdded = new MutableLiveData<>();
+    private final MutableLiveData<CircuitBreaker.State> apiState = new MutableLiveData<>();
+    private final CircuitBreaker.Listener apiStateListener = apiState::postValue;
+    private final AtomicReference<Cancellable> sync = new AtomicReference<>();
+    private final AtomicReference<Cancellable> dashboardLoad = new AtomicReference<>();
 
     /**
      * Constructor for MainViewModel.
@@ -28,7 +45,34 @@ public class MainViewModel extends AndroidViewModel {
      */
     public MainViewModel(Application application) {
         super(application);
-        userRepository = new UserRepository(application);
+        userRepository = UserRepository.getInstance(application);
+        CircuitBreaker circuitBreaker = userRepository.getCircuitBreaker();
+        apiState.setValue(circuitBreaker.getState());
+        circuitBreaker.addListener(apiStateListener);
+    }
+
+    /**
+     * Stops listening to the API circuit breaker and cancels the sync and dashboard queries
+     * when the ViewModel is destroyed. A sync still wanted by another screen keeps running.
+     */
+    @Override
+    protected void onCleared() {
+        userRepository.getCircuitBreaker().removeListener(apiStateListener);
+        replace(sync, null);
+        replace(dashboardLoad, null);
+        super.onCleared();
+    }
+
+    /**
+     * Stores the handle of a new operation and cancels the one it supersedes.
+     * @param slot The holder of the current operation.
+     * @param operation The new operation, or null to only cancel the current one.
+     */
+    private static void replace(AtomicReference<Cancellable> slot, Cancellable operation) {
+        Cancellable previous = slot.getAndSet(operation);
+        if (previous != null) {
+            previous.cancel();
+        }
     }
 
     /**
@@ -66,17 +110,46 @@ public class MainViewModel extends AndroidViewModel {
         return recentlyAddedUsers;
     }
 
+    /**
+     * @return LiveData object containing the state of the API circuit breaker. While it is OPEN,
+     *         syncs fail immediately and the dashboard shows the data already in the database.
+     */
+    public LiveData<CircuitBreaker.State> getApiState() {
+        return apiState;
+    }
+
+    /**
+     * @return Timing and size histograms of the network calls made by syncs.
+     */
+    public NetworkMetrics getNetworkMetrics() {
+        return RetrofitClient.getNetworkMetrics();
+    }
+
+    /**
+     * @return The repository's thread pools, with queue wait and run time histograms and task counters.
+     */
+    public List<InstrumentedExecutor> getExecutorMetrics() {
+        return userRepository.getExecutors();
+    }
+
     /**
      * Synchronizes users from the API with the local database.
+     * If the API is known to be down, the sync fails right away and the database snapshot is shown instead.
      */
     public void syncUsers() {
+        CircuitBreaker circuitBreaker = userRepository.getCircuitBreaker();
+        if (circuitBreaker.getRemainingCoolDownMillis() > 0) {
+            errorMessage.postValue(new CircuitOpenException(circuitBreaker.getRemainingCoolDownMillis()).getMessage());
+            loadDashboardData();
+            return;
+        }
         isLoading.postValue(true);
-        userRepository.syncUsersFromApi(new UserRepository.RepositoryCallback<>() {
+        replace(sync, userRepository.syncUsersFromApi(new UserRepository.RepositoryCallback<>() {
             @Override
-            public void onSuccess(List<User> newUsers) {
+            public void onSuccess(MergeResult mergeResult) {
                 isLoading.postValue(false);
                 syncSuccess.postValue(true);
-                newUsersAdded.postValue(newUsers.size());
+                newUsersAdded.postValue(mergeResult.getInserted());
                 loadDashboardData();
             }
 
@@ -84,21 +157,26 @@ public class MainViewModel extends AndroidViewModel {
             public void onError(Exception e) {
                 isLoading.postValue(false);
                 errorMessage.postValue(e.getMessage());
+                if (e instanceof CircuitOpenException) {
+                    loadDashboardData();
+                }
             }
-        });
+        }));
     }
 
     /**
-     * Loads dashboard data including total users and recently added users.
+     * Loads dashboard data including total users and users added in the last 5 minutes.
+     * Both numbers are counted by the database; no users are loaded.
+     * A load still waiting to run is cancelled, as this one supersedes it.
      */
     public void loadDashboardData() {
         isLoading.postValue(true);
-        userRepository.getUsersFromDatabase(new UserRepository.RepositoryCallback<>() {
+        long since = System.currentTimeMillis() - RECENT_WINDOW_MILLIS;
+        replace(dashboardLoad, userRepository.getUserCounts(since, new UserRepository.RepositoryCallback<>() {
             @Override
-            public void onSuccess(List<User> result) {
-                totalUsers.postValue(result.size());
-                int recentCount = countRecentlyAddedUsers(result);
-                recentlyAddedUsers.postValue(recentCount);
+            public void onSuccess(UserCounts result) {
+                totalUsers.postValue(result.getTotal());
+                recentlyAddedUsers.postValue(result.getCreatedSince());
                 isLoading.postValue(false);
             }
 
@@ -107,23 +185,6 @@ public class MainViewModel extends AndroidViewModel {
                 errorMessage.postValue("Error loading dashboard data: " + e.getMessage());
                 isLoading.postValue(false);
             }
-        });
-    }
-
-    /**
-     * Counts the number of users added in the last 5 minutes.
-     * @param users List of all users.
-     * @return The number of recently added users.
-     */
-    private int countRecentlyAddedUsers(List<User> users) {
-        Date now = new Date();
-        long dayInMillis = 5 * 60 * 1000; // 5 minutes
-        int count = 0;
-        for (User user : users) {
-            if (now.getTime() - user.getCreatedAt().getTime() < dayInMillis) {
-                count++;
-            }
-        }
-        return count;
+        }));
     }
 }
\ No newline at end of file
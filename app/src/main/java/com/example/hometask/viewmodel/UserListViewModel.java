@@ -4,19 +4,45 @@ import android.app.Application;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+import com.example.hometask.database.UserSort;
 import com.example.hometask.model.User;
+import com.example.hometask.repository.Cancellable;
 import com.example.hometask.repository.UserRepository;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * ViewModel for the User List functionality.
  * Handles the business logic for loading and displaying a list of users.
+ * The list is paged from the database, so only the users near the viewport are loaded.
  */
 public class UserListViewModel extends AndroidViewModel {
+
+    /**
+     * Number of users loaded per page of the list.
+     */
+    private static final int PAGE_SIZE = 30;
+
+    /**
+     * Number of loaded users kept in memory before pages far from the viewport are dropped.
+     * Dropped pages are loaded again from the database when the list is scrolled back to them.
+     */
+    private static final int MAX_LOADED_USERS = 10 * PAGE_SIZE;
+
     private final UserRepository userRepository;
-    private final MutableLiveData<List<User>> users = new MutableLiveData<>();
-    private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
+    private final MutableLiveData<UserSort> sort = new MutableLiveData<>(UserSort.ID);
+    private final LiveData<PagingData<User>> pagedUsers;
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
+    private final MutableLiveData<List<User>> searchResults = new MutableLiveData<>();
+    private final AtomicInteger latestSearch = new AtomicInteger();
+    private final AtomicReference<Cancellable> pendingSearch = new AtomicReference<>();
 
     /**
      * Constructor for UserListViewModel.
@@ -24,21 +50,35 @@ public class UserListViewModel extends AndroidViewModel {
      */
     public UserListViewModel(Application application) {
         super(application);
-        userRepository = new UserRepository(application);
+        userRepository = UserRepository.getInstance(application);
+        PagingConfig config = new PagingConfig(PAGE_SIZE, PAGE_SIZE, false, PAGE_SIZE, MAX_LOADED_USERS);
+        pagedUsers = Transformations.switchMap(sort, currentSort -> PagingLiveData.cachedIn(
+                PagingLiveData.getLiveData(new Pager<>(config, () -> userRepository.createUsersPagingSource(currentSort))),
+                ViewModelKt.getViewModelScope(this)));
     }
 
     /**
-     * @return LiveData object containing the list of users.
+     * @return LiveData object containing the users in the selected order, loaded page by page.
      */
-    public LiveData<List<User>> getUsers() {
-        return users;
+    public LiveData<PagingData<User>> getPagedUsers() {
+        return pagedUsers;
     }
 
     /**
-     * @return LiveData object indicating whether a loading operation is in progress.
+     * Changes the order of the paged list.
+     * @param newSort The new order.
      */
-    public LiveData<Boolean> getIsLoading() {
-        return isLoading;
+    public void setSort(UserSort newSort) {
+        if (newSort != sort.getValue()) {
+            sort.setValue(newSort);
+        }
+    }
+
+    /**
+     * @return LiveData object containing the users matching the latest search query.
+     */
+    public LiveData<List<User>> getSearchResults() {
+        return searchResults;
     }
 
     /**
@@ -49,22 +89,43 @@ public class UserListViewModel extends AndroidViewModel {
     }
 
     /**
-     * Loads the list of users from the database.
+     * Searches the users in the background, in the order selected with {@link #setSort(UserSort)}.
+     * A search that has been superseded by a newer one is cancelled if it has not started yet.
+     * Searches run in parallel on the repository's readers and may finish out of order, so the results
+     * of a superseded search that was already running are dropped; fast typing or switching the order
+     * never shows stale matches.
+     * @param query The search text.
      */
-    public void loadUsers() {
-        isLoading.setValue(true);
-        userRepository.getUsersFromDatabase(new UserRepository.RepositoryCallback<List<User>>() {
-            @Override
-            public void onSuccess(List<User> result) {
-                users.postValue(result);
-                isLoading.postValue(false);
-            }
+    public void searchUsers(String query) {
+        final int generation = latestSearch.incrementAndGet();
+        Cancellable previous = pendingSearch.getAndSet(userRepository.searchUsers(query, sort.getValue(),
+                new UserRepository.RepositoryCallback<>() {
+                    @Override
+                    public void onSuccess(List<User> result) {
+                        if (generation == latestSearch.get()) {
+                            searchResults.postValue(result);
+                        }
+                    }
 
-            @Override
-            public void onError(Exception e) {
-                errorMessage.postValue(e.getMessage());
-                isLoading.postValue(false);
-            }
-        });
+                    @Override
+                    public void onError(Exception e) {
+                        errorMessage.postValue(e.getMessage());
+                    }
+                }));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Cancels a search still waiting to run when the ViewModel is destroyed.
+     */
+    @Override
+    protected void onCleared() {
+        Cancellable pending = pendingSearch.getAndSet(null);
+        if (pending != null) {
+            pending.cancel();
+        }
+        super.onCleared();
     }
-}
\ No newline at end of file
+}
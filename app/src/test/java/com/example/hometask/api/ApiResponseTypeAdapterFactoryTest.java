@@ -0,0 +1,112 @@
+package com.example.hometask.api;
+
+import com.example.hometask.model.User;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ApiResponseTypeAdapterFactory}, directly and in a round trip through
+ * Retrofit against a local mock server.
+ */
+public class ApiResponseTypeAdapterFactoryTest {
+
+    static final String PAGE_JSON = "{\"page\":2,\"per_page\":2,\"total\":12,\"total_pages\":6,"
+            + "\"data\":["
+            + "{\"id\":3,\"email\":\"emma.wong@reqres.in\",\"first_name\":\"Emma\",\"last_name\":\"Wong\","
+            + "\"avatar\":\"https://reqres.in/img/faces/3-image.jpg\"},"
+            + "{\"id\":4,\"email\":\"eve.holt@reqres.in\",\"first_name\":\"Eve\",\"last_name\":\"Holt\","
+            + "\"avatar\":\"https://reqres.in/img/faces/4-image.jpg\"}],"
+            + "\"support\":{\"url\":\"https://reqres.in/#support-heading\",\"text\":\"Thanks!\"}}";
+
+    private static final Type USER_PAGE = new TypeToken<ApiResponse<List<User>>>() {}.getType();
+
+    private final Gson gson = RetrofitClient.getGson();
+
+    private MockWebServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void readsPaginationAndUsersAndSkipsTheSupportBlock() {
+        ApiResponse<List<User>> response = gson.fromJson(PAGE_JSON, USER_PAGE);
+        assertEquals(2, response.page());
+        assertEquals(2, response.perPage());
+        assertEquals(12, response.total());
+        assertEquals(6, response.totalPages());
+        assertEquals(2, response.data().size());
+        assertEquals(3, response.data().get(0).getId());
+        assertEquals("Holt", response.data().get(1).getLastName());
+    }
+
+    @Test
+    public void readsTheSamePageAsReflection() {
+        ApiResponse<List<User>> streamed = gson.fromJson(PAGE_JSON, USER_PAGE);
+        ReflectiveUserPage reflected = new Gson().fromJson(PAGE_JSON, ReflectiveUserPage.class);
+        assertEquals(reflected.page, streamed.page());
+        assertEquals(reflected.perPage, streamed.perPage());
+        assertEquals(reflected.total, streamed.total());
+        assertEquals(reflected.totalPages, streamed.totalPages());
+        assertEquals(reflected.data, streamed.data());
+    }
+
+    @Test
+    public void writtenPagesReadBackUnchanged() {
+        ApiResponse<List<User>> response = gson.fromJson(PAGE_JSON, USER_PAGE);
+        ApiResponse<List<User>> copy = gson.fromJson(gson.toJson(response, USER_PAGE), USER_PAGE);
+        assertEquals(response.page(), copy.page());
+        assertEquals(response.totalPages(), copy.totalPages());
+        assertEquals(response.data(), copy.data());
+        assertEquals("eve.holt@reqres.in", copy.data().get(1).getEmail());
+    }
+
+    @Test
+    public void leavesOtherTypesToGson() {
+        assertNull(new ApiResponseTypeAdapterFactory().create(gson, TypeToken.get(User.class)));
+    }
+
+    @Test
+    public void roundTripThroughRetrofit() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(PAGE_JSON));
+        ApiService api = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build()
+                .create(ApiService.class);
+
+        Response<ApiResponse<List<User>>> response = api.getUsers(2, 2).execute();
+
+        assertTrue(response.isSuccessful());
+        assertEquals(6, response.body().totalPages());
+        assertEquals("Emma", response.body().data().get(0).getFirstName());
+        RecordedRequest request = server.takeRequest();
+        assertEquals("/api/users?page=2&per_page=2", request.getPath());
+    }
+}
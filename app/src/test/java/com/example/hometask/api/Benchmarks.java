@@ -0,0 +1,45 @@
+package com.example.hometask.api;
+
+import org.junit.Assume;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Benchmarks gathers what the JVM benchmarks of this package share: they are skipped unless the
+ * "benchmarks" system property is true, which the build sets when run with -Pbenchmarks, and they
+ * append their results to a text file per benchmark class under the "benchmarkReportDir" directory.
+ */
+final class Benchmarks {
+    private static final String DEFAULT_REPORT_DIR = "build/reports/benchmarks";
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Skips the calling test unless benchmarks were requested.
+     */
+    static void assumeEnabled() {
+        Assume.assumeTrue("Benchmarks only run with -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+    }
+
+    /**
+     * Appends a line of results to the report of a benchmark class.
+     *
+     * @param benchmark The benchmark class, which names the report file.
+     * @param line      The results to append.
+     * @throws IOException If the report cannot be written.
+     */
+    static void report(Class<?> benchmark, String line) throws IOException {
+        File dir = new File(System.getProperty("benchmarkReportDir", DEFAULT_REPORT_DIR));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        try (Writer writer = new FileWriter(new File(dir, benchmark.getSimpleName() + ".txt"), true)) {
+            writer.write(line);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
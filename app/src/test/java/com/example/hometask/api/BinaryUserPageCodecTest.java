@@ -0,0 +1,94 @@
+package com.example.hometask.api;
+
+import com.example.hometask.model.User;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link BinaryUserPageCodec}.
+ */
+public class BinaryUserPageCodecTest {
+
+    @Test
+    public void decodesWhatWasEncoded() throws IOException {
+        User user = new User("zo\u00eb.\u0142ukasz@reqres.in", "Zo\u00eb", "\u0141ukasz", "https://reqres.in/img/faces/1-image.jpg");
+        user.setId(11);
+        ApiResponse<List<User>> page = new ApiResponse<>(3, 1, 12, 12, Arrays.asList(user));
+
+        ApiResponse<List<User>> decoded = BinaryUserPageCodec.decode(BinaryUserPageEncoder.encode(page));
+
+        assertEquals(3, decoded.page());
+        assertEquals(1, decoded.perPage());
+        assertEquals(12, decoded.total());
+        assertEquals(12, decoded.totalPages());
+        assertEquals(1, decoded.data().size());
+        User copy = decoded.data().get(0);
+        assertEquals(11, copy.getId());
+        assertEquals("zo\u00eb.\u0142ukasz@reqres.in", copy.getEmail());
+        assertEquals("Zo\u00eb", copy.getFirstName());
+        assertEquals("\u0141ukasz", copy.getLastName());
+        assertEquals("https://reqres.in/img/faces/1-image.jpg", copy.getAvatar());
+    }
+
+    @Test
+    public void keepsNullsAndEmptyStringsApart() throws IOException {
+        User user = new User(null, "", null, "");
+        user.setId(1);
+        ApiResponse<List<User>> page = new ApiResponse<>(1, 6, 1, 1, Arrays.asList(user));
+
+        User copy = BinaryUserPageCodec.decode(BinaryUserPageEncoder.encode(page)).data().get(0);
+
+        assertNull(copy.getEmail());
+        assertEquals("", copy.getFirstName());
+        assertNull(copy.getLastName());
+        assertEquals("", copy.getAvatar());
+    }
+
+    @Test
+    public void decodesAnEmptyPage() throws IOException {
+        ApiResponse<List<User>> page = new ApiResponse<>(13, 6, 12, 2, new ArrayList<>());
+        ApiResponse<List<User>> decoded = BinaryUserPageCodec.decode(BinaryUserPageEncoder.encode(page));
+        assertEquals(13, decoded.page());
+        assertTrue(decoded.data().isEmpty());
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void rejectsInputWithoutTheMagic() throws IOException {
+        BinaryUserPageCodec.decode(new Buffer().writeUtf8("{\"page\":1,\"data\":[]}"));
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void rejectsANegativeUserCount() throws IOException {
+        Buffer buffer = new Buffer().writeInt(BinaryUserPageCodec.MAGIC)
+                .writeInt(1).writeInt(6).writeInt(12).writeInt(2)
+                .writeInt(-3);
+        BinaryUserPageCodec.decode(buffer);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void rejectsAnOversizedString() throws IOException {
+        Buffer buffer = new Buffer().writeInt(BinaryUserPageCodec.MAGIC)
+                .writeInt(1).writeInt(6).writeInt(12).writeInt(2)
+                .writeInt(1)
+                .writeInt(7).writeInt(Integer.MAX_VALUE);
+        BinaryUserPageCodec.decode(buffer);
+    }
+
+    @Test(expected = IOException.class)
+    public void failsOnATruncatedPage() throws IOException {
+        Buffer encoded = BinaryUserPageEncoder.encode(UserPageServer.createPage(2));
+        Buffer truncated = new Buffer();
+        truncated.write(encoded, encoded.size() - 5);
+        BinaryUserPageCodec.decode(truncated);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.hometask.api;
+
+import com.example.hometask.model.User;
+
+import java.io.IOException;
+import java.util.List;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * Encodes pages of users in the {@link BinaryUserPageCodec} format, so mock servers can serve it.
+ * The app itself only ever decodes the format.
+ */
+final class BinaryUserPageEncoder {
+
+    private BinaryUserPageEncoder() {
+    }
+
+    /**
+     * @param response The page to encode.
+     * @return The encoded page.
+     */
+    static Buffer encode(ApiResponse<List<User>> response) throws IOException {
+        Buffer buffer = new Buffer();
+        encode(response, buffer);
+        return buffer;
+    }
+
+    /**
+     * @param response The page to encode.
+     * @param sink     Where to write the encoded page.
+     */
+    static void encode(ApiResponse<List<User>> response, BufferedSink sink) throws IOException {
+        List<User> users = response.data();
+        sink.writeInt(BinaryUserPageCodec.MAGIC);
+        sink.writeInt(response.page());
+        sink.writeInt(response.perPage());
+        sink.writeInt(response.total());
+        sink.writeInt(response.totalPages());
+        sink.writeInt(users.size());
+        for (User user : users) {
+            sink.writeInt(user.getId());
+            writeString(sink, user.getEmail());
+            writeString(sink, user.getFirstName());
+            writeString(sink, user.getLastName());
+            writeString(sink, user.getAvatar());
+        }
+    }
+
+    private static void writeString(BufferedSink sink, String value) throws IOException {
+        if (value == null) {
+            sink.writeInt(-1);
+            return;
+        }
+        ByteString bytes = ByteString.encodeUtf8(value);
+        sink.writeInt(bytes.size());
+        sink.write(bytes);
+    }
+}
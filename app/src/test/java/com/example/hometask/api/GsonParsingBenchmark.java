@@ -0,0 +1,156 @@
+package com.example.hometask.api;
+
+import com.example.hometask.model.User;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares parsing a page of users with reflective Gson and with the streaming adapters of
+ * {@link RetrofitClient#getGson()}: the latency of the first parse on a fresh Gson instance,
+ * which includes building the adapters, and the throughput once both are warmed up.
+ * The reflective side reads {@link ReflectiveUserPage}, as Gson cannot reflectively build the record on the JVM.
+ * Each measurement is split into rounds that alternate which variant runs first, so neither
+ * consistently benefits from the JIT work or the garbage left by the other.
+ * Only runs with -Pbenchmarks; results go to the GsonParsingBenchmark report, see {@link Benchmarks}.
+ */
+public class GsonParsingBenchmark {
+
+    private static final Type USER_PAGE = new TypeToken<ApiResponse<List<User>>>() {}.getType();
+    private static final int USERS_PER_PAGE = 100;
+    private static final int FIRST_PARSE_ROUNDS = 10;
+    private static final int WARMUP_ITERATIONS = 2_000;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final int MEASURED_ITERATIONS = 5_000;
+
+    @Before
+    public void assumeBenchmarksEnabled() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void firstParseLatency() throws IOException {
+        String json = createPageJson();
+        // Load the model and Gson classes once, so neither side pays for class loading alone
+        new Gson().fromJson("{}", Object.class);
+        newStreamingGson().fromJson(json, USER_PAGE);
+
+        long reflectiveNanos = 0;
+        long streamingNanos = 0;
+        for (int round = 0; round < FIRST_PARSE_ROUNDS; round++) {
+            if (round % 2 == 0) {
+                reflectiveNanos += firstReflectiveParse(json);
+                streamingNanos += firstStreamingParse(json);
+            } else {
+                streamingNanos += firstStreamingParse(json);
+                reflectiveNanos += firstReflectiveParse(json);
+            }
+        }
+
+        Benchmarks.report(GsonParsingBenchmark.class, "First parse of " + USERS_PER_PAGE + " users, average of "
+                + FIRST_PARSE_ROUNDS + " fresh instances: reflective " + reflectiveNanos / FIRST_PARSE_ROUNDS / 1000
+                + " us, streaming " + streamingNanos / FIRST_PARSE_ROUNDS / 1000 + " us");
+    }
+
+    @Test
+    public void parseThroughput() throws IOException {
+        String json = createPageJson();
+        Gson reflective = new Gson();
+        Gson streaming = RetrofitClient.getGson();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            reflective.fromJson(json, ReflectiveUserPage.class);
+            streaming.fromJson(json, USER_PAGE);
+        }
+
+        int iterationsPerRound = MEASURED_ITERATIONS / MEASURED_ROUNDS;
+        long reflectiveNanos = 0;
+        long streamingNanos = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            if (round % 2 == 0) {
+                reflectiveNanos += parseReflective(reflective, json, iterationsPerRound);
+                streamingNanos += parseStreaming(streaming, json, iterationsPerRound);
+            } else {
+                streamingNanos += parseStreaming(streaming, json, iterationsPerRound);
+                reflectiveNanos += parseReflective(reflective, json, iterationsPerRound);
+            }
+        }
+
+        Benchmarks.report(GsonParsingBenchmark.class, "Parsing " + MEASURED_ITERATIONS + " pages of "
+                + USERS_PER_PAGE + " users: reflective " + pagesPerSecond(reflectiveNanos) + " pages/s, streaming "
+                + pagesPerSecond(streamingNanos) + " pages/s");
+    }
+
+    private static long firstReflectiveParse(String json) {
+        long start = System.nanoTime();
+        ReflectiveUserPage page = new Gson().fromJson(json, ReflectiveUserPage.class);
+        long nanos = System.nanoTime() - start;
+        assertEquals(USERS_PER_PAGE, page.data.size());
+        return nanos;
+    }
+
+    private static long firstStreamingParse(String json) {
+        long start = System.nanoTime();
+        ApiResponse<List<User>> page = newStreamingGson().fromJson(json, USER_PAGE);
+        long nanos = System.nanoTime() - start;
+        assertEquals(USERS_PER_PAGE, page.data().size());
+        return nanos;
+    }
+
+    private static long parseReflective(Gson gson, String json, int iterations) {
+        long start = System.nanoTime();
+        int users = 0;
+        for (int i = 0; i < iterations; i++) {
+            users += gson.fromJson(json, ReflectiveUserPage.class).data.size();
+        }
+        long nanos = System.nanoTime() - start;
+        assertEquals(iterations * USERS_PER_PAGE, users);
+        return nanos;
+    }
+
+    private static long parseStreaming(Gson gson, String json, int iterations) {
+        long start = System.nanoTime();
+        int users = 0;
+        for (int i = 0; i < iterations; i++) {
+            ApiResponse<List<User>> page = gson.fromJson(json, USER_PAGE);
+            users += page.data().size();
+        }
+        long nanos = System.nanoTime() - start;
+        assertEquals(iterations * USERS_PER_PAGE, users);
+        return nanos;
+    }
+
+    private static long pagesPerSecond(long nanos) {
+        return MEASURED_ITERATIONS * 1_000_000_000L / Math.max(nanos, 1);
+    }
+
+    /**
+     * @return A Gson instance configured like {@link RetrofitClient#getGson()}, but with no adapters built yet.
+     */
+    private static Gson newStreamingGson() {
+        return new GsonBuilder()
+                .registerTypeAdapter(User.class, new UserTypeAdapter())
+                .registerTypeAdapterFactory(new ApiResponseTypeAdapterFactory())
+                .create();
+    }
+
+    private static String createPageJson() {
+        List<User> users = new ArrayList<>(USERS_PER_PAGE);
+        for (int i = 1; i <= USERS_PER_PAGE; i++) {
+            User user = new User("user" + i + "@reqres.in", "First" + i, "Last" + i,
+                    "https://reqres.in/img/faces/" + (i % 12 + 1) + "-image.jpg");
+            user.setId(i);
+            users.add(user);
+        }
+        return RetrofitClient.getGson().toJson(new ApiResponse<>(1, USERS_PER_PAGE, USERS_PER_PAGE, 1, users), USER_PAGE);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.hometask.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link HedgingInterceptor} against two local mock servers, a primary and a mirror,
+ * with latency injected into their responses.
+ */
+public class HedgingInterceptorTest {
+
+    private static final long HEDGE_DELAY_MILLIS = 100;
+    private static final long CALL_TIMEOUT_MILLIS = 2000;
+
+    private MockWebServer primary;
+    private MockWebServer mirror;
+
+    @Before
+    public void startServers() throws IOException {
+        primary = new MockWebServer();
+        mirror = new MockWebServer();
+        primary.start();
+        mirror.start();
+    }
+
+    @After
+    public void stopServers() throws IOException {
+        primary.shutdown();
+        mirror.shutdown();
+    }
+
+    @Test
+    public void fastPrimaryIsNotHedged() throws IOException {
+        primary.enqueue(new MockResponse().setBody("primary"));
+        HedgingInterceptor hedging = newInterceptor();
+
+        assertEquals("primary", get(newClient(hedging), "users?page=1"));
+        assertEquals(0, hedging.getHedgesSent());
+        assertEquals(0, mirror.getRequestCount());
+    }
+
+    @Test
+    public void slowPrimaryIsHedgedAndTheMirrorWins() throws IOException, InterruptedException {
+        primary.enqueue(new MockResponse().setBody("primary").setHeadersDelay(1500, TimeUnit.MILLISECONDS));
+        mirror.enqueue(new MockResponse().setBody("mirror"));
+        HedgingInterceptor hedging = newInterceptor();
+
+        long startedAt = System.nanoTime();
+        assertEquals("mirror", get(newClient(hedging), "users?page=1"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 1000);
+        assertEquals(1, hedging.getHedgesSent());
+        assertEquals(1, hedging.getHedgesWon());
+        assertEquals("/api/users?page=1", mirror.takeRequest().getPath());
+    }
+
+    @Test
+    public void primaryFailureHedgesWithoutWaitingForTheDelay() throws IOException {
+        primary.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        mirror.enqueue(new MockResponse().setBody("mirror"));
+        HedgingInterceptor hedging = new HedgingInterceptor(newTransport(), mirrors(), 95,
+                5000, 5000, 5000, CALL_TIMEOUT_MILLIS);
+
+        long startedAt = System.nanoTime();
+        assertEquals("mirror", get(newClient(hedging), "users?page=1"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 5000);
+    }
+
+    @Test
+    public void callFailsAtTheDeadlineWhenNoMirrorAnswers() {
+        primary.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        mirror.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        HedgingInterceptor hedging = newInterceptor();
+
+        long startedAt = System.nanoTime();
+        try {
+            get(newClient(hedging), "users?page=1");
+            fail("Expected the call to time out");
+        } catch (IOException e) {
+            assertTrue(e instanceof InterruptedIOException);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis >= CALL_TIMEOUT_MILLIS && elapsedMillis < 4 * CALL_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * More concurrent calls than the outer client's per-host limit, with a slow primary: every
+     * dispatcher thread of the outer client is taken by a waiting call, yet the transport calls
+     * still run on their own dispatcher and every call completes through the mirror.
+     */
+    @Test
+    public void saturatedOuterDispatcherDoesNotStarveTransportCalls() throws InterruptedException {
+        final int calls = 6;
+        for (int i = 0; i < calls; i++) {
+            primary.enqueue(new MockResponse().setBody("primary").setHeadersDelay(1500, TimeUnit.MILLISECONDS));
+            mirror.enqueue(new MockResponse().setBody("mirror").setHeadersDelay(50, TimeUnit.MILLISECONDS));
+        }
+        Dispatcher outerDispatcher = new Dispatcher();
+        outerDispatcher.setMaxRequestsPerHost(2);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .dispatcher(outerDispatcher)
+                .addInterceptor(newInterceptor())
+                .build();
+
+        final CountDownLatch done = new CountDownLatch(calls);
+        final AtomicInteger succeeded = new AtomicInteger();
+        for (int i = 0; i < calls; i++) {
+            client.newCall(new Request.Builder().url(primary.url("/api/users?page=" + (i + 1))).build())
+                    .enqueue(new Callback() {
+                        @Override
+                        public void onResponse(Call call, Response response) {
+                            if (response.isSuccessful()) {
+                                succeeded.incrementAndGet();
+                            }
+                            response.close();
+                            done.countDown();
+                        }
+
+                        @Override
+                        public void onFailure(Call call, IOException e) {
+                            done.countDown();
+                        }
+                    });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(calls, succeeded.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAMissingCallTimeout() {
+        new HedgingInterceptor(newTransport(), mirrors(), 95, 100, 100, 100, 0);
+    }
+
+    private HedgingInterceptor newInterceptor() {
+        return new HedgingInterceptor(newTransport(), mirrors(), 95,
+                HEDGE_DELAY_MILLIS, HEDGE_DELAY_MILLIS, HEDGE_DELAY_MILLIS, CALL_TIMEOUT_MILLIS);
+    }
+
+    private List<String> mirrors() {
+        return new ArrayList<>(Arrays.asList(primary.url("/api/").toString(), mirror.url("/api/").toString()));
+    }
+
+    private static OkHttpClient newTransport() {
+        return new OkHttpClient.Builder().dispatcher(new Dispatcher()).build();
+    }
+
+    private static OkHttpClient newClient(HedgingInterceptor hedging) {
+        return new OkHttpClient.Builder().addInterceptor(hedging).build();
+    }
+
+    private String get(OkHttpClient client, String path) throws IOException {
+        Request request = new Request.Builder().url(primary.url("/api/" + path)).build();
+        try (Response response = client.newCall(request).execute()) {
+            return response.body().string();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.hometask.api;
+
+import com.example.hometask.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link NegotiatingConverterFactory} against a local mock server that serves
+ * the users page in both encodings.
+ */
+public class NegotiatingConverterFactoryTest {
+
+    private MockWebServer server;
+    private UserPageServer pages;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new MockWebServer();
+        pages = new UserPageServer(UserPageServer.createPage(6));
+        server.setDispatcher(pages);
+        server.start();
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void asksForTheBinaryFormatAndDecodesIt() throws IOException, InterruptedException {
+        Response<ApiResponse<List<User>>> response = UserPageServer.newApiService(server).getUsers(1, null).execute();
+
+        assertEquals(BinaryUserPageCodec.MEDIA_TYPE.toString(), response.headers().get("Content-Type"));
+        assertPageEquals(pages.getPage(), response.body());
+        assertTrue(server.takeRequest().getHeader("Accept").startsWith(BinaryUserPageCodec.MEDIA_TYPE.toString()));
+    }
+
+    @Test
+    public void fallsBackToJson() throws IOException {
+        Response<ApiResponse<List<User>>> response = UserPageServer.newJsonOnlyApiService(server).getUsers(1, null).execute();
+
+        assertTrue(response.headers().get("Content-Type").startsWith("application/json"));
+        assertPageEquals(pages.getPage(), response.body());
+    }
+
+    @Test
+    public void binaryBodyIsReportedAsAnError() throws IOException {
+        MockWebServer broken = new MockWebServer();
+        broken.enqueue(new MockResponse()
+                .setHeader("Content-Type", BinaryUserPageCodec.MEDIA_TYPE.toString())
+                .setBody("not a page"));
+        broken.start();
+        try {
+            UserPageServer.newApiService(broken).getUsers(1, null).execute();
+            fail("Expected the corrupt page to be rejected");
+        } catch (IOException expected) {
+            // The converter's ProtocolException reaches the caller
+        } finally {
+            broken.shutdown();
+        }
+    }
+
+    @Test
+    public void leavesOtherTypesToTheNextConverter() {
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addConverterFactory(NegotiatingConverterFactory.create())
+                .build();
+        assertNull(NegotiatingConverterFactory.create()
+                .responseBodyConverter(User.class, new Annotation[0], retrofit));
+    }
+
+    private static void assertPageEquals(ApiResponse<List<User>> expected, ApiResponse<List<User>> actual) {
+        assertEquals(expected.page(), actual.page());
+        assertEquals(expected.perPage(), actual.perPage());
+        assertEquals(expected.total(), actual.total());
+        assertEquals(expected.totalPages(), actual.totalPages());
+        assertEquals(expected.data().size(), actual.data().size());
+        for (int i = 0; i < expected.data().size(); i++) {
+            User want = expected.data().get(i);
+            User got = actual.data().get(i);
+            assertEquals(want.getId(), got.getId());
+            assertEquals(want.getEmail(), got.getEmail());
+            assertEquals(want.getFirstName(), got.getFirstName());
+            assertEquals(want.getLastName(), got.getLastName());
+            assertEquals(want.getAvatar(), got.getAvatar());
+        }
+    }
+}
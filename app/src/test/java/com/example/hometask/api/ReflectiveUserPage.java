@@ -0,0 +1,28 @@
+package com.example.hometask.api;
+
+import com.example.hometask.model.User;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+/**
+ * A plain-class copy of ApiResponse&lt;List&lt;User&gt;&gt; with the same field mappings, read by reflective
+ * Gson as the baseline for the streaming adapters. On the JVM Gson cannot set the final fields of
+ * a record reflectively, unlike on Android where records are desugared into ordinary classes.
+ */
+class ReflectiveUserPage {
+    @SerializedName("page")
+    int page;
+
+    @SerializedName("per_page")
+    int perPage;
+
+    @SerializedName("total")
+    int total;
+
+    @SerializedName("total_pages")
+    int totalPages;
+
+    @SerializedName("data")
+    List<User> data;
+}
@@ -0,0 +1,112 @@
+package com.example.hometask.api;
+
+import androidx.annotation.NonNull;
+
+import com.example.hometask.model.User;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * A mock users API that serves the same page in the binary format or as JSON, depending on the
+ * Accept header of the request, the way a server supporting content negotiation would.
+ */
+final class UserPageServer extends Dispatcher {
+
+    private final ApiResponse<List<User>> page;
+    private final Buffer binary;
+    private final String json;
+
+    UserPageServer(ApiResponse<List<User>> page) throws IOException {
+        this.page = page;
+        this.binary = BinaryUserPageEncoder.encode(page);
+        this.json = RetrofitClient.getGson().toJson(page, new TypeToken<ApiResponse<List<User>>>() {}.getType());
+    }
+
+    @NonNull
+    @Override
+    public MockResponse dispatch(@NonNull RecordedRequest request) {
+        String accept = request.getHeader("Accept");
+        if (accept != null && accept.contains(BinaryUserPageCodec.MEDIA_TYPE.toString())) {
+            return new MockResponse()
+                    .setHeader("Content-Type", BinaryUserPageCodec.MEDIA_TYPE.toString())
+                    .setBody(binary.clone());
+        }
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(json);
+    }
+
+    ApiResponse<List<User>> getPage() {
+        return page;
+    }
+
+    /**
+     * @return The page in the binary format.
+     */
+    Buffer getBinary() {
+        return binary.clone();
+    }
+
+    /**
+     * @return The page as JSON.
+     */
+    String getJson() {
+        return json;
+    }
+
+    /**
+     * @return An ApiService on the server that negotiates like the app's, binary first and JSON as the fallback.
+     */
+    static ApiService newApiService(MockWebServer server) {
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addConverterFactory(NegotiatingConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create(RetrofitClient.getGson()))
+                .build()
+                .create(ApiService.class);
+    }
+
+    /**
+     * @return An ApiService on the server that only accepts JSON, as a client without the binary converter would.
+     */
+    static ApiService newJsonOnlyApiService(MockWebServer server) {
+        OkHttpClient jsonOnly = new OkHttpClient.Builder()
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                        .header("Accept", "application/json").build()))
+                .build();
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .client(jsonOnly)
+                .addConverterFactory(NegotiatingConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create(RetrofitClient.getGson()))
+                .build()
+                .create(ApiService.class);
+    }
+
+    /**
+     * @param count The number of users on the page.
+     * @return Page 1 of a single-page listing with the given number of users.
+     */
+    static ApiResponse<List<User>> createPage(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            User user = new User("user" + i + "@reqres.in", "First" + i, "Last" + i,
+                    "https://reqres.in/img/faces/" + (i % 12 + 1) + "-image.jpg");
+            user.setId(i);
+            users.add(user);
+        }
+        return new ApiResponse<>(1, count, count, 1, users);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.hometask.api;
+
+import com.example.hometask.model.User;
+import com.google.gson.TypeAdapter;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link UserStream}, in particular pagination fields that follow the "data" array.
+ */
+public class UserStreamTest {
+
+    private static final String PAGE_WITH_TRAILING_METADATA = "{\"page\":2,\"data\":["
+            + "{\"id\":7,\"first_name\":\"Michael\"},{\"id\":8,\"first_name\":\"Lindsay\"}],"
+            + "\"per_page\":2,\"total\":6,\"total_pages\":3}";
+
+    private final TypeAdapter<User> userAdapter = RetrofitClient.getGson().getAdapter(User.class);
+
+    @Test
+    public void readsTheMetadataThatFollowsTheData() throws IOException {
+        try (UserStream stream = open(PAGE_WITH_TRAILING_METADATA)) {
+            assertEquals(2, stream.getPage());
+            assertEquals(0, stream.getTotalPages());
+            List<User> users = new ArrayList<>();
+            while (stream.hasMore()) {
+                stream.readChunk(users, 1);
+            }
+            assertEquals(2, users.size());
+            assertEquals(8, users.get(1).getId());
+            assertEquals(2, stream.getPerPage());
+            assertEquals(6, stream.getTotal());
+            assertEquals(3, stream.getTotalPages());
+        }
+    }
+
+    @Test
+    public void skippingTheDataStillReadsTheMetadata() throws IOException {
+        try (UserStream stream = open(PAGE_WITH_TRAILING_METADATA)) {
+            List<User> users = new ArrayList<>();
+            stream.readChunk(users, 1);
+            stream.skipRemaining();
+            assertFalse(stream.hasMore());
+            assertEquals(1, users.size());
+            assertEquals(3, stream.getTotalPages());
+        }
+    }
+
+    private UserStream open(String json) throws IOException {
+        return new UserStream(ResponseBody.create(json, MediaType.get("application/json")), userAdapter);
+    }
+}
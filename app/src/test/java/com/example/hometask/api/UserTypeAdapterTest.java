@@ -0,0 +1,77 @@
+package com.example.hometask.api;
+
+import com.example.hometask.model.User;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link UserTypeAdapter}, through the shared Gson instance it is registered with.
+ */
+public class UserTypeAdapterTest {
+
+    private static final String USER_JSON = "{\"id\":7,\"email\":\"michael.lawson@reqres.in\","
+            + "\"first_name\":\"Michael\",\"last_name\":\"Lawson\","
+            + "\"avatar\":\"https://reqres.in/img/faces/7-image.jpg\"}";
+
+    private final Gson gson = RetrofitClient.getGson();
+
+    @Test
+    public void readsTheSerializedNames() {
+        User user = gson.fromJson(USER_JSON, User.class);
+        assertEquals(7, user.getId());
+        assertEquals("michael.lawson@reqres.in", user.getEmail());
+        assertEquals("Michael", user.getFirstName());
+        assertEquals("Lawson", user.getLastName());
+        assertEquals("https://reqres.in/img/faces/7-image.jpg", user.getAvatar());
+    }
+
+    @Test
+    public void readsTheSameUserAsReflection() {
+        User streamed = gson.fromJson(USER_JSON, User.class);
+        User reflected = new Gson().fromJson(USER_JSON, User.class);
+        assertEquals(reflected.getId(), streamed.getId());
+        assertEquals(reflected.getEmail(), streamed.getEmail());
+        assertEquals(reflected.getFirstName(), streamed.getFirstName());
+        assertEquals(reflected.getLastName(), streamed.getLastName());
+        assertEquals(reflected.getAvatar(), streamed.getAvatar());
+    }
+
+    @Test
+    public void skipsUnknownAndLocalOnlyFields() {
+        User user = gson.fromJson("{\"id\":1,\"nickname\":{\"a\":[1,2]},"
+                + "\"contentHash\":99,\"first_name\":\"George\"}", User.class);
+        assertEquals(1, user.getId());
+        assertEquals("George", user.getFirstName());
+        assertEquals(0, user.getContentHash());
+    }
+
+    @Test
+    public void readsNullFieldsAndNullUsers() {
+        User user = gson.fromJson("{\"id\":2,\"email\":null,\"avatar\":null}", User.class);
+        assertEquals(2, user.getId());
+        assertNull(user.getEmail());
+        assertNull(user.getAvatar());
+        assertNull(gson.fromJson("null", User.class));
+    }
+
+    @Test
+    public void writesOnlyTheApiFields() {
+        User user = new User("janet.weaver@reqres.in", "Janet", "Weaver", null);
+        user.setId(2);
+        user.setCreatedAt(new Date());
+        user.setContentHash(42);
+        assertEquals("{\"id\":2,\"email\":\"janet.weaver@reqres.in\",\"first_name\":\"Janet\","
+                + "\"last_name\":\"Weaver\"}", gson.toJson(user));
+    }
+
+    @Test
+    public void writtenUsersReadBackUnchanged() {
+        User user = gson.fromJson(USER_JSON, User.class);
+        assertEquals(USER_JSON, gson.toJson(gson.fromJson(gson.toJson(user), User.class)));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.hometask.api;
+
+import com.example.hometask.model.User;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the binary users page with JSON: the bytes a mock server sends for the same page in each
+ * encoding, and the time to decode it. Decoding is timed on in-memory copies, so the network does not
+ * blur the comparison, and split into rounds that alternate which encoding runs first.
+ * Only runs with -Pbenchmarks; results go to the WireFormatBenchmark report, see {@link Benchmarks}.
+ */
+public class WireFormatBenchmark {
+
+    private static final Type USER_PAGE = new TypeToken<ApiResponse<List<User>>>() {}.getType();
+    private static final int USERS_PER_PAGE = 500;
+    private static final int WARMUP_ITERATIONS = 500;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final int MEASURED_ITERATIONS = 2_000;
+
+    @Before
+    public void assumeBenchmarksEnabled() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void bytesTransferred() throws IOException {
+        UserPageServer pages = new UserPageServer(UserPageServer.createPage(USERS_PER_PAGE));
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(pages);
+        server.start();
+        try {
+            long binaryBytes = fetchBodyBytes(UserPageServer.newApiService(server));
+            long jsonBytes = fetchBodyBytes(UserPageServer.newJsonOnlyApiService(server));
+            assertEquals(pages.getBinary().size(), binaryBytes);
+            assertTrue(binaryBytes < jsonBytes);
+
+            Benchmarks.report(WireFormatBenchmark.class, "Page of " + USERS_PER_PAGE + " users: binary "
+                    + binaryBytes + " bytes, JSON " + jsonBytes + " bytes");
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void decodeTime() throws IOException {
+        UserPageServer pages = new UserPageServer(UserPageServer.createPage(USERS_PER_PAGE));
+        Buffer json = new Buffer().writeUtf8(pages.getJson());
+        Gson gson = RetrofitClient.getGson();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            BinaryUserPageCodec.decode(pages.getBinary());
+            decodeJson(gson, json.clone());
+        }
+
+        int iterationsPerRound = MEASURED_ITERATIONS / MEASURED_ROUNDS;
+        long binaryNanos = 0;
+        long jsonNanos = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            if (round % 2 == 0) {
+                binaryNanos += decodeBinaryPages(pages, iterationsPerRound);
+                jsonNanos += decodeJsonPages(gson, json, iterationsPerRound);
+            } else {
+                jsonNanos += decodeJsonPages(gson, json, iterationsPerRound);
+                binaryNanos += decodeBinaryPages(pages, iterationsPerRound);
+            }
+        }
+
+        Benchmarks.report(WireFormatBenchmark.class, "Decoding a page of " + USERS_PER_PAGE + " users: binary "
+                + binaryNanos / MEASURED_ITERATIONS / 1000 + " us, JSON " + jsonNanos / MEASURED_ITERATIONS / 1000 + " us");
+    }
+
+    private static long decodeBinaryPages(UserPageServer pages, int iterations) throws IOException {
+        long start = System.nanoTime();
+        int users = 0;
+        for (int i = 0; i < iterations; i++) {
+            users += BinaryUserPageCodec.decode(pages.getBinary()).data().size();
+        }
+        long nanos = System.nanoTime() - start;
+        assertEquals(iterations * USERS_PER_PAGE, users);
+        return nanos;
+    }
+
+    private static long decodeJsonPages(Gson gson, Buffer json, int iterations) {
+        long start = System.nanoTime();
+        int users = 0;
+        for (int i = 0; i < iterations; i++) {
+            users += decodeJson(gson, json.clone()).data().size();
+        }
+        long nanos = System.nanoTime() - start;
+        assertEquals(iterations * USERS_PER_PAGE, users);
+        return nanos;
+    }
+
+    /**
+     * Decodes JSON from bytes the way Retrofit's Gson converter reads a response body.
+     */
+    private static ApiResponse<List<User>> decodeJson(Gson gson, Buffer json) {
+        return gson.fromJson(new InputStreamReader(json.inputStream(), StandardCharsets.UTF_8), USER_PAGE);
+    }
+
+    private static long fetchBodyBytes(ApiService api) throws IOException {
+        Response<ApiResponse<List<User>>> response = api.getUsers(1, null).execute();
+        assertEquals(USERS_PER_PAGE, response.body().data().size());
+        return Long.parseLong(response.headers().get("Content-Length"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.hometask.database;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link UserFtsMatch}.
+ */
+public class UserFtsMatchTest {
+
+    @Test
+    public void countsTheHitsOfEveryPhraseInEveryColumn() {
+        // Two phrases over three columns: (hits in this row, hits in all rows, rows with hits) each
+        byte[] info = matchInfo(2, 3,
+                1, 5, 4,   2, 9, 7,   0, 3, 3,
+                0, 1, 1,   1, 2, 2,   1, 8, 6);
+        assertEquals(5, new UserFtsMatch(12, info).getHitCount());
+    }
+
+    @Test
+    public void ignoresTheTotalsOfOtherRows() {
+        byte[] info = matchInfo(1, 3,
+                0, 500, 400,   1, 900, 700,   0, 300, 300);
+        assertEquals(1, new UserFtsMatch(3, info).getHitCount());
+    }
+
+    @Test
+    public void missingOrTruncatedInfoCountsAsNoHits() {
+        assertEquals(0, new UserFtsMatch(1, null).getHitCount());
+        assertEquals(0, new UserFtsMatch(1, new byte[4]).getHitCount());
+        byte[] truncated = matchInfo(1, 3, 2);
+        assertEquals(2, new UserFtsMatch(1, truncated).getHitCount());
+    }
+
+    private static byte[] matchInfo(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * values.length).order(ByteOrder.nativeOrder());
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.hometask.repository;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PageSizeController}.
+ */
+public class PageSizeControllerTest {
+
+    @Test
+    public void usesTheServerDefaultUntilAPageIsRecorded() {
+        assertEquals(0, new PageSizeController().getPageSize());
+    }
+
+    @Test
+    public void growsAtMostTwofoldPerPageOnAFastLink() {
+        PageSizeController controller = new PageSizeController();
+        controller.record(6, 60, -1);
+        assertEquals(12, controller.getPageSize());
+        controller.record(12, 120, -1);
+        assertEquals(24, controller.getPageSize());
+    }
+
+    @Test
+    public void neverExceedsTheMaximum() {
+        PageSizeController controller = new PageSizeController();
+        for (int i = 0; i < 20; i++) {
+            controller.record(Math.max(controller.getPageSize(), PageSizeController.MIN_PAGE_SIZE), 1, -1);
+        }
+        assertEquals(PageSizeController.MAX_PAGE_SIZE, controller.getPageSize());
+    }
+
+    @Test
+    public void shrinksAtMostByHalfPerPageOnASlowLink() {
+        PageSizeController controller = new PageSizeController();
+        controller.record(100, 100, -1);
+        assertEquals(PageSizeController.MAX_PAGE_SIZE, controller.getPageSize());
+        // 1 s per user from now on; the moving average takes the drop in steps
+        controller.record(100, 100_000, -1);
+        assertEquals(50, controller.getPageSize());
+        controller.record(50, 50_000, -1);
+        assertEquals(25, controller.getPageSize());
+    }
+
+    @Test
+    public void neverGoesBelowTheMinimum() {
+        PageSizeController controller = new PageSizeController();
+        for (int i = 0; i < 20; i++) {
+            controller.record(PageSizeController.MIN_PAGE_SIZE, 60_000, -1);
+        }
+        assertEquals(PageSizeController.MIN_PAGE_SIZE, controller.getPageSize());
+    }
+
+    @Test
+    public void aLongerTargetAllowsLargerPages() {
+        PageSizeController controller = new PageSizeController();
+        controller.setTargetMillis(100);
+        controller.record(6, 60, -1);
+        // 10 ms per user and a 100 ms target fit 10 users
+        assertEquals(10, controller.getPageSize());
+    }
+
+    @Test
+    public void payloadLimitCapsThePageSize() {
+        PageSizeController controller = new PageSizeController();
+        controller.setMaxPageBytes(1000);
+        controller.record(6, 6, 600);
+        // 100 bytes per user and a 1000 byte limit fit 10 users, although the time target fits many more
+        assertEquals(10, controller.getPageSize());
+    }
+
+    @Test
+    public void ignoresEmptyPagesAndNegativeTimes() {
+        PageSizeController controller = new PageSizeController();
+        controller.record(0, 100, -1);
+        controller.record(10, -1, -1);
+        assertEquals(0, controller.getPageSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsATargetBelowOneMillisecond() {
+        new PageSizeController().setTargetMillis(0);
+    }
+}